@@ -0,0 +1,95 @@
+package com.amulyakhare.textdrawable.benchmark;
+
+import com.amulyakhare.textdrawable.util.ColorGenerator;
+import com.amulyakhare.textdrawable.util.KeyHasher;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link ColorGenerator} lookups for the hashing strategies, with and without the
+ * index memo, and of {@link ColorGenerator#getRandomColor()} under contention.
+ *
+ * @author alvinhkh
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ColorGeneratorBenchmark {
+
+    private static final ColorGenerator JAVA = ColorGenerator.MATERIAL;
+
+    private static final ColorGenerator JAVA_MEMO = JAVA.withMemo(4096);
+
+    private static final ColorGenerator MURMUR3 =
+            ColorGenerator.MATERIAL.withKeyHasher(KeyHasher.MURMUR3);
+
+    private static final ColorGenerator MURMUR3_MEMO = MURMUR3.withMemo(4096);
+
+    private String[] names;
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        List<String> corpus = NameCorpus.emails();
+        names = corpus.toArray(new String[corpus.size()]);
+    }
+
+    private String nextName() {
+        String name = names[next];
+        next = next + 1 == names.length ? 0 : next + 1;
+        return name;
+    }
+
+    @Benchmark
+    public int getColorJava() {
+        return JAVA.getColor(nextName());
+    }
+
+    @Benchmark
+    public int getColorJavaMemo() {
+        return JAVA_MEMO.getColor(nextName());
+    }
+
+    @Benchmark
+    public int getColorMurmur3() {
+        return MURMUR3.getColor(nextName());
+    }
+
+    @Benchmark
+    public int getColorMurmur3Memo() {
+        return MURMUR3_MEMO.getColor(nextName());
+    }
+
+    @Benchmark
+    public int getColorLong() {
+        return JAVA.getColor((long) next++);
+    }
+
+    @Benchmark
+    public int getRandomColor() {
+        return JAVA.getRandomColor();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public int getRandomColorAllThreads() {
+        return JAVA.getRandomColor();
+    }
+}
@@ -0,0 +1,76 @@
+package com.amulyakhare.textdrawable.benchmark;
+
+import com.amulyakhare.textdrawable.core.AvatarSpec;
+import com.amulyakhare.textdrawable.java2d.Java2DBackend;
+import com.amulyakhare.textdrawable.util.ColorGenerator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server-side throughput of {@link Java2DBackend} for round 96px avatars of varying initials
+ * and colours.
+ *
+ * @author alvinhkh
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class Java2DBackendBenchmark {
+
+    private static final int SIZE = 96;
+
+    private AvatarSpec[] specs;
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        List<String> names = NameCorpus.emails();
+        specs = new AvatarSpec[1024];
+        for (int i = 0; i < specs.length; i++) {
+            String name = names.get(i % names.size());
+            specs[i] = new AvatarSpec.Builder()
+                    .setShape(AvatarSpec.SHAPE_ROUND)
+                    .setWidth(SIZE)
+                    .setHeight(SIZE)
+                    .setColor(ColorGenerator.MATERIAL.getColor(name))
+                    .setText(name.substring(0, 1))
+                    .toUpperCase()
+                    .build();
+        }
+    }
+
+    private AvatarSpec nextSpec() {
+        AvatarSpec spec = specs[next];
+        next = next + 1 == specs.length ? 0 : next + 1;
+        return spec;
+    }
+
+    @Benchmark
+    public BufferedImage render() {
+        return Java2DBackend.INSTANCE.render(nextSpec());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public BufferedImage renderContended() {
+        return Java2DBackend.INSTANCE.render(nextSpec());
+    }
+}
@@ -0,0 +1,58 @@
+package com.amulyakhare.textdrawable.benchmark;
+
+import com.amulyakhare.textdrawable.util.ColorGenerator;
+import com.amulyakhare.textdrawable.util.KeyHasher;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prints how evenly each {@link KeyHasher} spreads realistic keys over the built-in palettes.
+ * A chi-squared value close to the number of colors minus one means an even spread; the
+ * largest bucket shows how crowded the most common color gets.
+ *
+ * @author alvinhkh
+ */
+public final class KeyDistribution {
+
+    private KeyDistribution() {
+    }
+
+    public static void main(String[] args) {
+        report("names", NameCorpus.names());
+        report("emails", NameCorpus.emails());
+        report("initials", NameCorpus.initials());
+    }
+
+    private static void report(String label, List<String> keys) {
+        report(label, keys, "DEFAULT", ColorGenerator.DEFAULT, 9);
+        report(label, keys, "MATERIAL", ColorGenerator.MATERIAL, 17);
+    }
+
+    private static void report(String label, List<String> keys, String paletteName,
+                               ColorGenerator palette, int colors) {
+        report(label, keys, paletteName, "JAVA", palette.withKeyHasher(KeyHasher.JAVA), colors);
+        report(label, keys, paletteName, "MURMUR3", palette.withKeyHasher(KeyHasher.MURMUR3), colors);
+    }
+
+    private static void report(String label, List<String> keys, String paletteName,
+                               String hasherName, ColorGenerator generator, int colors) {
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (String key : keys) {
+            int color = generator.getColor(key);
+            Integer count = counts.get(color);
+            counts.put(color, count == null ? 1 : count + 1);
+        }
+        double expected = (double) keys.size() / colors;
+        // colors that were never picked contribute a full expected count each
+        double chiSquared = (colors - counts.size()) * expected;
+        int max = 0;
+        for (int count : counts.values()) {
+            chiSquared += (count - expected) * (count - expected) / expected;
+            max = Math.max(max, count);
+        }
+        System.out.printf("%-9s %-9s %-8s keys=%5d chi2=%8.2f max=%5d (expected %.1f)%n",
+                label, paletteName, hasherName, keys.size(), chiSquared, max, expected);
+    }
+}
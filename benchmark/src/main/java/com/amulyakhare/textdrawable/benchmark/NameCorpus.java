@@ -0,0 +1,63 @@
+package com.amulyakhare.textdrawable.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Contact-list-like keys: full names, e-mail addresses and two-letter initials.
+ *
+ * @author alvinhkh
+ */
+final class NameCorpus {
+
+    private static final String[] FIRST_NAMES = {
+            "James", "Mary", "John", "Patricia", "Robert", "Jennifer", "Michael", "Linda",
+            "William", "Elizabeth", "David", "Barbara", "Richard", "Susan", "Joseph", "Jessica",
+            "Thomas", "Sarah", "Charles", "Karen", "Wei", "Li", "Ming", "Yan", "Hiroshi", "Yuki",
+            "Ahmed", "Fatima", "Mohammed", "Aisha", "Carlos", "Maria", "Jose", "Ana", "Luis",
+            "Sofia", "Ivan", "Olga", "Dmitri", "Anna", "Raj", "Priya", "Amit", "Neha", "Kofi",
+            "Ama", "Lars", "Ingrid", "Pierre", "Camille"
+    };
+
+    private static final String[] LAST_NAMES = {
+            "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis",
+            "Rodriguez", "Martinez", "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson",
+            "Thomas", "Taylor", "Moore", "Jackson", "Martin", "Chan", "Wong", "Chen", "Lee",
+            "Wang", "Zhang", "Tanaka", "Sato", "Suzuki", "Kim", "Park", "Nguyen", "Tran",
+            "Khan", "Ali", "Singh", "Patel", "Kumar", "Ivanov", "Petrov", "Muller", "Schmidt",
+            "Rossi", "Russo", "Dubois", "Laurent", "Silva", "Santos", "Mensah", "Hansen"
+    };
+
+    private NameCorpus() {
+    }
+
+    static List<String> names() {
+        List<String> names = new ArrayList<>(FIRST_NAMES.length * LAST_NAMES.length);
+        for (String first : FIRST_NAMES) {
+            for (String last : LAST_NAMES) {
+                names.add(first + " " + last);
+            }
+        }
+        return names;
+    }
+
+    static List<String> emails() {
+        List<String> emails = new ArrayList<>(FIRST_NAMES.length * LAST_NAMES.length);
+        for (String first : FIRST_NAMES) {
+            for (String last : LAST_NAMES) {
+                emails.add(first.toLowerCase() + "." + last.toLowerCase() + "@example.com");
+            }
+        }
+        return emails;
+    }
+
+    static List<String> initials() {
+        List<String> initials = new ArrayList<>(26 * 26);
+        for (char a = 'A'; a <= 'Z'; a++) {
+            for (char b = 'A'; b <= 'Z'; b++) {
+                initials.add(new String(new char[]{a, b}));
+            }
+        }
+        return initials;
+    }
+}
@@ -0,0 +1,135 @@
+package com.amulyakhare.textdrawable.core;
+
+/**
+ * Where the fill, border and text of an avatar go for one size of bounds. The layout is pure
+ * arithmetic; only the text baseline needs a measurement from the backend, see
+ * {@link #getTextBaseline(float)}. Instances are mutable and meant to be reused.
+ *
+ * @author alvinhkh
+ */
+public final class AvatarLayout {
+
+    private static final float SHADE_FACTOR = 0.9f;
+
+    private float textSize;
+
+    private float textX;
+
+    private int contentTop;
+
+    private int contentWidth;
+
+    private int contentHeight;
+
+    private int boundsWidth;
+
+    private int boundsHeight;
+
+    private float borderLeft;
+
+    private float borderTop;
+
+    private float borderRight;
+
+    private float borderBottom;
+
+    /**
+     * Lay out the spec in bounds of the given size at the origin.
+     */
+    public AvatarLayout compute(AvatarSpec spec, int boundsWidth, int boundsHeight) {
+        return compute(spec.width, spec.height, spec.fontSize, spec.borderThickness,
+                0, 0, boundsWidth, boundsHeight);
+    }
+
+    /**
+     * Lay out an avatar in the given bounds.
+     *
+     * @param width    content width, or -1 to fill the bounds
+     * @param height   content height, or -1 to fill the bounds
+     * @param fontSize text size, or -1 for half the smaller content side
+     */
+    public AvatarLayout compute(int width, int height, int fontSize, int borderThickness,
+                                int left, int top, int boundsWidth, int boundsHeight) {
+        contentWidth = width < 0 ? boundsWidth : width;
+        contentHeight = height < 0 ? boundsHeight : height;
+        contentTop = top;
+        this.boundsWidth = boundsWidth;
+        this.boundsHeight = boundsHeight;
+        textSize = fontSize < 0 ? (Math.min(contentWidth, contentHeight) / 2) : fontSize;
+        textX = left + contentWidth / 2;
+        // the stroke is centred on the border rect, so inset it to keep the stroke inside
+        borderLeft = left + borderThickness / 2;
+        borderTop = top + borderThickness / 2;
+        borderRight = left + boundsWidth - borderThickness / 2;
+        borderBottom = top + boundsHeight - borderThickness / 2;
+        return this;
+    }
+
+    /**
+     * @return the text size, or 0 if there is no room for text
+     */
+    public float getTextSize() {
+        return textSize;
+    }
+
+    /**
+     * @return the horizontal centre of the text
+     */
+    public float getTextX() {
+        return textX;
+    }
+
+    /**
+     * @param textCenterY vertical centre of the text relative to its baseline, as measured by
+     *                    the backend for the spec's vertical alignment
+     * @return the baseline that centres the text vertically
+     */
+    public float getTextBaseline(float textCenterY) {
+        return contentTop + contentHeight / 2 - textCenterY;
+    }
+
+    public int getContentWidth() {
+        return contentWidth;
+    }
+
+    public int getContentHeight() {
+        return contentHeight;
+    }
+
+    /**
+     * @return the width of the filled shape, which always covers the bounds
+     */
+    public int getBoundsWidth() {
+        return boundsWidth;
+    }
+
+    public int getBoundsHeight() {
+        return boundsHeight;
+    }
+
+    public float getBorderLeft() {
+        return borderLeft;
+    }
+
+    public float getBorderTop() {
+        return borderTop;
+    }
+
+    public float getBorderRight() {
+        return borderRight;
+    }
+
+    public float getBorderBottom() {
+        return borderBottom;
+    }
+
+    /**
+     * @return the opaque colour a default border is drawn in for the given fill colour
+     */
+    public static int darkerShade(int color) {
+        return 0xff000000
+                | ((int) (SHADE_FACTOR * ((color >> 16) & 0xff)) << 16)
+                | ((int) (SHADE_FACTOR * ((color >> 8) & 0xff)) << 8)
+                | (int) (SHADE_FACTOR * (color & 0xff));
+    }
+}
@@ -0,0 +1,40 @@
+package com.amulyakhare.textdrawable.core;
+
+/**
+ * Draws an {@link AvatarSpec} through a {@link RenderBackend}, in the same order and positions
+ * as {@code TextDrawable}: fill, border, then text.
+ *
+ * @author alvinhkh
+ */
+public final class AvatarRenderer {
+
+    private static final ThreadLocal<AvatarLayout> layouts = new ThreadLocal<AvatarLayout>() {
+        @Override
+        protected AvatarLayout initialValue() {
+            return new AvatarLayout();
+        }
+    };
+
+    private AvatarRenderer() {
+    }
+
+    /**
+     * Draw the spec into bounds of the given size at the origin of the target.
+     */
+    public static <T> void render(RenderBackend<T> backend, T target, AvatarSpec spec,
+                                  int width, int height) {
+        AvatarLayout layout = layouts.get().compute(spec, width, height);
+        backend.fillShape(target, spec, 0, 0, width, height, spec.color);
+        if (spec.borderThickness > 0) {
+            backend.strokeShape(target, spec, layout.getBorderLeft(), layout.getBorderTop(),
+                    layout.getBorderRight(), layout.getBorderBottom(),
+                    spec.getResolvedBorderColor(), spec.borderThickness);
+        }
+        float textSize = layout.getTextSize();
+        if (textSize > 0) {
+            float centerY = backend.getTextCenterY(target, spec, textSize);
+            backend.drawText(target, spec, layout.getTextX(), layout.getTextBaseline(centerY),
+                    textSize);
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.amulyakhare.textdrawable.core;
+
+/**
+ * Immutable description of a text avatar that does not depend on any graphics API, so the same
+ * avatar can be laid out by {@link AvatarLayout} and drawn by any {@link RenderBackend}.
+ * Colours are ARGB ints and font styles use the values shared by {@code android.graphics.Typeface}
+ * and {@code java.awt.Font}: 0 normal, 1 bold, 2 italic, 3 bold italic.
+ *
+ * @author alvinhkh
+ */
+public final class AvatarSpec {
+
+    public static final int SHAPE_RECT = 0;
+
+    public static final int SHAPE_ROUND_RECT = 1;
+
+    public static final int SHAPE_ROUND = 2;
+
+    public static final int ALIGN_FONT_METRICS = 0;
+
+    public static final int ALIGN_GLYPH_BOUNDS = 1;
+
+    public static final String DEFAULT_FONT_NAME = "sans-serif-light";
+
+    public static final int DEFAULT_BORDER_COLOR = -1;
+
+    final int borderColor;
+
+    final int borderThickness;
+
+    final int color;
+
+    final String fontName;
+
+    final int fontSize;
+
+    final int fontStyle;
+
+    final int height;
+
+    final boolean isBold;
+
+    final float radius;
+
+    final int shape;
+
+    final String text;
+
+    final int textColor;
+
+    final int verticalAlign;
+
+    final int width;
+
+    private final int hashCode;
+
+    private AvatarSpec(Builder builder) {
+        borderColor = builder.borderColor;
+        borderThickness = builder.borderThickness;
+        color = builder.color;
+        fontName = builder.fontName;
+        fontSize = builder.fontSize;
+        fontStyle = builder.fontStyle;
+        height = builder.height;
+        isBold = builder.isBold;
+        radius = builder.radius;
+        shape = builder.shape;
+        text = builder.toUpperCase ? builder.text.toUpperCase() : builder.text;
+        textColor = builder.textColor;
+        verticalAlign = builder.verticalAlign;
+        width = builder.width;
+        hashCode = computeHashCode();
+    }
+
+    /**
+     * @return the border colour, or {@link #DEFAULT_BORDER_COLOR} for a darker shade of the fill
+     */
+    public int getBorderColor() {
+        return borderColor;
+    }
+
+    /**
+     * @return the colour the border is actually drawn in
+     */
+    public int getResolvedBorderColor() {
+        return borderColor == DEFAULT_BORDER_COLOR ? AvatarLayout.darkerShade(color) : borderColor;
+    }
+
+    public int getBorderThickness() {
+        return borderThickness;
+    }
+
+    public int getColor() {
+        return color;
+    }
+
+    public String getFontName() {
+        return fontName;
+    }
+
+    /**
+     * @return the font size, or -1 for half the smaller side
+     */
+    public int getFontSize() {
+        return fontSize;
+    }
+
+    public int getFontStyle() {
+        return fontStyle;
+    }
+
+    /**
+     * @return the height, or -1 to fill the bounds
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    public boolean isBold() {
+        return isBold;
+    }
+
+    public float getRadius() {
+        return radius;
+    }
+
+    public int getShape() {
+        return shape;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public int getTextColor() {
+        return textColor;
+    }
+
+    public int getVerticalAlign() {
+        return verticalAlign;
+    }
+
+    /**
+     * @return the width, or -1 to fill the bounds
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return whether the avatar covers every pixel of its bounds with an opaque colour
+     */
+    public boolean isOpaque() {
+        boolean rectangular = shape == SHAPE_RECT || (shape == SHAPE_ROUND_RECT && radius <= 0);
+        return rectangular && (color >>> 24) == 0xff;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof AvatarSpec)) return false;
+        AvatarSpec that = (AvatarSpec) o;
+        return hashCode == that.hashCode
+                && borderColor == that.borderColor
+                && borderThickness == that.borderThickness
+                && color == that.color
+                && fontSize == that.fontSize
+                && fontStyle == that.fontStyle
+                && height == that.height
+                && isBold == that.isBold
+                && Float.compare(radius, that.radius) == 0
+                && shape == that.shape
+                && textColor == that.textColor
+                && verticalAlign == that.verticalAlign
+                && width == that.width
+                && text.equals(that.text)
+                && fontName.equals(that.fontName);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    private int computeHashCode() {
+        int result = text.hashCode();
+        result = 31 * result + color;
+        result = 31 * result + textColor;
+        result = 31 * result + borderColor;
+        result = 31 * result + borderThickness;
+        result = 31 * result + shape;
+        result = 31 * result + Float.floatToIntBits(radius);
+        result = 31 * result + fontName.hashCode();
+        result = 31 * result + fontStyle;
+        result = 31 * result + fontSize;
+        result = 31 * result + width;
+        result = 31 * result + height;
+        result = 31 * result + (isBold ? 1 : 0);
+        result = 31 * result + verticalAlign;
+        return result;
+    }
+
+    public static class Builder {
+
+        private int borderColor;
+
+        private int borderThickness;
+
+        private int color;
+
+        private String fontName;
+
+        private int fontSize;
+
+        private int fontStyle;
+
+        private int height;
+
+        private boolean isBold;
+
+        private float radius;
+
+        private int shape;
+
+        private String text;
+
+        private int textColor;
+
+        private boolean toUpperCase;
+
+        private int verticalAlign;
+
+        private int width;
+
+        public Builder() {
+            borderColor = DEFAULT_BORDER_COLOR;
+            borderThickness = 0;
+            color = 0xff888888;
+            fontName = DEFAULT_FONT_NAME;
+            fontSize = -1;
+            fontStyle = 0;
+            height = -1;
+            isBold = false;
+            shape = SHAPE_RECT;
+            text = "";
+            textColor = 0xffffffff;
+            toUpperCase = false;
+            verticalAlign = ALIGN_FONT_METRICS;
+            width = -1;
+        }
+
+        public Builder setBold() {
+            this.isBold = true;
+            return this;
+        }
+
+        public Builder setBorder(int thickness) {
+            this.borderThickness = thickness;
+            return this;
+        }
+
+        public Builder setBorderColor(int color) {
+            this.borderColor = color;
+            return this;
+        }
+
+        public Builder setColor(int color) {
+            this.color = color;
+            return this;
+        }
+
+        public Builder setFont(String name, int style) {
+            if (name == null) {
+                throw new NullPointerException("name == null");
+            }
+            this.fontName = name;
+            this.fontStyle = style;
+            return this;
+        }
+
+        public Builder setFontSize(int size) {
+            this.fontSize = size;
+            return this;
+        }
+
+        public Builder setHeight(int height) {
+            this.height = height;
+            return this;
+        }
+
+        public Builder setRadius(float radius) {
+            this.radius = radius;
+            return this;
+        }
+
+        public Builder setShape(int shape) {
+            this.shape = shape;
+            return this;
+        }
+
+        public Builder setText(String text) {
+            if (text == null) {
+                throw new NullPointerException("text == null");
+            }
+            this.text = text;
+            return this;
+        }
+
+        public Builder setTextColor(int color) {
+            this.textColor = color;
+            return this;
+        }
+
+        public Builder setVerticalAlign(int align) {
+            this.verticalAlign = align;
+            return this;
+        }
+
+        public Builder setWidth(int width) {
+            this.width = width;
+            return this;
+        }
+
+        public Builder toUpperCase() {
+            this.toUpperCase = true;
+            return this;
+        }
+
+        public AvatarSpec build() {
+            return new AvatarSpec(this);
+        }
+    }
+}
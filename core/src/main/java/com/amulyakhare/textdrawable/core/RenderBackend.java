@@ -0,0 +1,37 @@
+package com.amulyakhare.textdrawable.core;
+
+/**
+ * Draws the primitives of an avatar onto a target of some graphics API, e.g. a
+ * {@code java.awt.Graphics2D}. {@link AvatarRenderer} decides what goes where; a backend only
+ * has to draw it and measure text. Backends must be safe to use from several threads, each with
+ * its own target.
+ *
+ * @param <T> the drawing target
+ * @author alvinhkh
+ */
+public interface RenderBackend<T> {
+
+    /**
+     * Fill the spec's shape over the given rect.
+     */
+    void fillShape(T target, AvatarSpec spec, float left, float top, float right, float bottom,
+                   int color);
+
+    /**
+     * Stroke the outline of the spec's shape, centred on the given rect.
+     */
+    void strokeShape(T target, AvatarSpec spec, float left, float top, float right, float bottom,
+                     int color, float strokeWidth);
+
+    /**
+     * @return the vertical centre of the spec's text at the given size, relative to the
+     * baseline (negative above it), using the glyph bounds or the font ascent and descent as
+     * the spec's vertical alignment asks
+     */
+    float getTextCenterY(T target, AvatarSpec spec, float textSize);
+
+    /**
+     * Draw the spec's text horizontally centred on x, with the baseline at y.
+     */
+    void drawText(T target, AvatarSpec spec, float x, float y, float textSize);
+}
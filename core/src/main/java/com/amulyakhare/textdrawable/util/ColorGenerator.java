@@ -0,0 +1,151 @@
+package com.amulyakhare.textdrawable.util;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * @author amulya
+ * @datetime 14 Oct 2014, 5:20 PM
+ */
+public class ColorGenerator {
+
+    public static final ColorGenerator DEFAULT = create(
+            0xfff16364,
+            0xfff58559,
+            0xfff9a43e,
+            0xffe4c62e,
+            0xff67bf74,
+            0xff59a2be,
+            0xff2093cd,
+            0xffad62a7,
+            0xff805781
+    );
+
+    public static final ColorGenerator MATERIAL = create(
+            0xffe57373,
+            0xfff06292,
+            0xffba68c8,
+            0xff9575cd,
+            0xff7986cb,
+            0xff64b5f6,
+            0xff4fc3f7,
+            0xff4dd0e1,
+            0xff4db6ac,
+            0xff81c784,
+            0xffaed581,
+            0xffff8a65,
+            0xffd4e157,
+            0xffffd54f,
+            0xffffb74d,
+            0xffa1887f,
+            0xff90a4ae
+    );
+
+    /**
+     * One {@link Random} per thread, shared by all generators, so concurrent callers of
+     * {@link #getRandomColor()} never contend on a common seed.
+     * {@code ThreadLocalRandom} would do the same but needs API 21.
+     */
+    private static final ThreadLocal<Random> sRandom = new ThreadLocal<Random>() {
+        @Override
+        protected Random initialValue() {
+            return new Random();
+        }
+    };
+
+    private final int[] mColors;
+    private final KeyHasher mHasher;
+    private final ColorIndexMemo mMemo;
+
+    public static ColorGenerator create(int... colors) {
+        if (colors.length == 0) {
+            throw new IllegalArgumentException("colors is empty");
+        }
+        return new ColorGenerator(colors.clone(), KeyHasher.JAVA, null);
+    }
+
+    public static ColorGenerator create(List<Integer> colorList) {
+        int[] colors = new int[colorList.size()];
+        for (int i = 0; i < colors.length; i++) {
+            colors[i] = colorList.get(i);
+        }
+        return create(colors);
+    }
+
+    private ColorGenerator(int[] colors, KeyHasher hasher, ColorIndexMemo memo) {
+        mColors = colors;
+        mHasher = hasher;
+        mMemo = memo;
+    }
+
+    /**
+     * Return a generator with the same palette that hashes keys with the given strategy, e.g.
+     * {@link KeyHasher#MURMUR3} for colors that are stable across devices and servers.
+     */
+    public ColorGenerator withKeyHasher(KeyHasher hasher) {
+        return new ColorGenerator(mColors, hasher,
+                mMemo != null ? new ColorIndexMemo(mMemo.capacity()) : null);
+    }
+
+    /**
+     * Return a generator with the same palette and hashing that remembers the palette index of
+     * up to about {@code capacity} recent {@link String} keys. Only worth it with
+     * {@link KeyHasher#MURMUR3}, when the same keys are looked up over and over, e.g. sender
+     * names in an inbox: a memo hit takes about a third of the time of hashing an e-mail address.
+     * With the default {@link KeyHasher#JAVA} hashing, whose {@link String#hashCode()} is cached
+     * by the string, a memo makes lookups slower.
+     */
+    public ColorGenerator withMemo(int capacity) {
+        return new ColorGenerator(mColors, mHasher, new ColorIndexMemo(capacity));
+    }
+
+    public int getRandomColor() {
+        return mColors[sRandom.get().nextInt(mColors.length)];
+    }
+
+    public int getColor(Object key) {
+        if (mMemo != null && key instanceof String) {
+            return getColor((String) key);
+        }
+        return mColors[indexFor(mHasher.hash(key))];
+    }
+
+    /**
+     * Same color as {@link #getColor(Object)} for an equal {@link String}, without allocating.
+     */
+    public int getColor(CharSequence key) {
+        if (mMemo != null && key instanceof String) {
+            return getColor((String) key);
+        }
+        return mColors[indexFor(mHasher.hash(key))];
+    }
+
+    private int getColor(String key) {
+        int index = mMemo.get(key);
+        if (index < 0) {
+            index = indexFor(mHasher.hash(key));
+            mMemo.put(key, index);
+        }
+        return mColors[index];
+    }
+
+    /**
+     * Same color as {@link #getColor(Object)} for an equal {@link Integer}, without boxing.
+     * Without this overload int keys would widen to {@link #getColor(long)}, which hashes like
+     * {@link Long} and differs for negative keys.
+     */
+    public int getColor(int key) {
+        return mColors[indexFor(mHasher.hash(key))];
+    }
+
+    /**
+     * Same color as {@link #getColor(Object)} for an equal {@link Long}, without boxing.
+     */
+    public int getColor(long key) {
+        return mColors[indexFor(mHasher.hash(key))];
+    }
+
+    private int indexFor(int hash) {
+        return (hash & 0x7fffffff) % mColors.length;
+    }
+}
@@ -0,0 +1,86 @@
+package com.amulyakhare.textdrawable.util;
+
+/**
+ * Bounded memo from String keys to palette indices for {@link ColorGenerator}. Slots are found
+ * by open addressing on the key's cached {@link String#hashCode()}, so a hit costs an int
+ * compare and an equality check instead of running the {@link KeyHasher} over the whole key.
+ * <p>
+ * Entries are immutable and slots are overwritten without locking; a racing writer can only
+ * lose a memoized entry, never return a wrong index.
+ *
+ * @author alvinhkh
+ */
+final class ColorIndexMemo {
+
+    private static final int MAX_PROBES = 4;
+
+    private final Entry[] table;
+
+    private final int mask;
+
+    ColorIndexMemo(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity <= 0");
+        }
+        int size = Integer.highestOneBit(Math.max(capacity, MAX_PROBES) - 1) << 1;
+        table = new Entry[size];
+        mask = size - 1;
+    }
+
+    int capacity() {
+        return table.length;
+    }
+
+    /**
+     * @return the memoized index for the key, or -1
+     */
+    int get(String key) {
+        int hash = key.hashCode();
+        Entry[] table = this.table;
+        int slot = spread(hash) & mask;
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            Entry e = table[(slot + probe) & mask];
+            if (e == null) {
+                break;
+            }
+            if (e.hash == hash && (e.key == key || e.key.equals(key))) {
+                return e.index;
+            }
+        }
+        return -1;
+    }
+
+    void put(String key, int index) {
+        int hash = key.hashCode();
+        Entry[] table = this.table;
+        int slot = spread(hash) & mask;
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int i = (slot + probe) & mask;
+            if (table[i] == null) {
+                table[i] = new Entry(hash, key, index);
+                return;
+            }
+        }
+        // probe window full: replace the entry in the home slot
+        table[slot] = new Entry(hash, key, index);
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    private static final class Entry {
+
+        final int hash;
+
+        final String key;
+
+        final int index;
+
+        Entry(int hash, String key, int index) {
+            this.hash = hash;
+            this.key = key;
+            this.index = index;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.amulyakhare.textdrawable.util;
+
+/**
+ * Turns a {@link ColorGenerator} key into a well-distributed 32 bit hash. The generator maps
+ * the hash to a palette index, so the strategy decides which keys share a color.
+ *
+ * @author alvinhkh
+ */
+public interface KeyHasher {
+
+    /**
+     * Mixes the key's own {@link Object#hashCode()}. Fast, since {@link String} caches its hash
+     * code, but the result for non-String keys may differ between processes and platforms.
+     */
+    KeyHasher JAVA = new KeyHasher() {
+        @Override
+        public int hash(CharSequence key) {
+            int h;
+            if (key instanceof String) {
+                h = key.hashCode();
+            } else {
+                // String.hashCode() over the chars, so equal text maps to the same color
+                h = 0;
+                for (int i = 0, length = key.length(); i < length; i++) {
+                    h = 31 * h + key.charAt(i);
+                }
+            }
+            return Murmur3.fmix(h);
+        }
+
+        @Override
+        public int hash(int key) {
+            return Murmur3.fmix(key);
+        }
+
+        @Override
+        public int hash(long key) {
+            return Murmur3.fmix((int) (key ^ (key >>> 32)));
+        }
+
+        @Override
+        public int hash(Object key) {
+            if (key instanceof CharSequence) {
+                return hash((CharSequence) key);
+            }
+            return Murmur3.fmix(key.hashCode());
+        }
+    };
+
+    /**
+     * MurmurHash3 (x86, 32 bit, seed 0) over the key's UTF-16 chars. Similar short strings are
+     * spread evenly, and the result is the same on every device and JVM: it matches Guava's
+     * {@code Hashing.murmur3_32().hashUnencodedChars(key)} and {@code hashLong(key)}, so a server
+     * can assign the same colors. Keys that are neither text nor integral numbers are hashed by
+     * their {@link Object#toString()}.
+     */
+    KeyHasher MURMUR3 = new KeyHasher() {
+        @Override
+        public int hash(CharSequence key) {
+            return Murmur3.hashChars(key);
+        }
+
+        @Override
+        public int hash(int key) {
+            return Murmur3.hashLong(key);
+        }
+
+        @Override
+        public int hash(long key) {
+            return Murmur3.hashLong(key);
+        }
+
+        @Override
+        public int hash(Object key) {
+            if (key instanceof CharSequence) {
+                return Murmur3.hashChars((CharSequence) key);
+            }
+            if (key instanceof Long || key instanceof Integer
+                    || key instanceof Short || key instanceof Byte) {
+                return Murmur3.hashLong(((Number) key).longValue());
+            }
+            return Murmur3.hashChars(key.toString());
+        }
+    };
+
+    int hash(CharSequence key);
+
+    /**
+     * Must equal {@link #hash(Object)} of the boxed {@link Integer}.
+     */
+    int hash(int key);
+
+    /**
+     * Must equal {@link #hash(Object)} of the boxed {@link Long}.
+     */
+    int hash(long key);
+
+    int hash(Object key);
+}
@@ -0,0 +1,58 @@
+package com.amulyakhare.textdrawable.util;
+
+/**
+ * MurmurHash3 x86_32 with seed 0, laid out like Guava's implementation so hashes match it.
+ *
+ * @author alvinhkh
+ */
+final class Murmur3 {
+
+    private static final int C1 = 0xcc9e2d51;
+
+    private static final int C2 = 0x1b873593;
+
+    private Murmur3() {
+    }
+
+    static int hashChars(CharSequence input) {
+        int h1 = 0;
+        int length = input.length();
+        // two UTF-16 chars per 4 byte block
+        for (int i = 1; i < length; i += 2) {
+            int k1 = input.charAt(i - 1) | (input.charAt(i) << 16);
+            h1 = mixH1(h1, mixK1(k1));
+        }
+        if ((length & 1) == 1) {
+            h1 ^= mixK1(input.charAt(length - 1));
+        }
+        return fmix(h1 ^ (2 * length));
+    }
+
+    static int hashLong(long input) {
+        int h1 = mixH1(0, mixK1((int) input));
+        h1 = mixH1(h1, mixK1((int) (input >>> 32)));
+        return fmix(h1 ^ 8);
+    }
+
+    private static int mixK1(int k1) {
+        k1 *= C1;
+        k1 = Integer.rotateLeft(k1, 15);
+        k1 *= C2;
+        return k1;
+    }
+
+    private static int mixH1(int h1, int k1) {
+        h1 ^= k1;
+        h1 = Integer.rotateLeft(h1, 13);
+        return h1 * 5 + 0xe6546b64;
+    }
+
+    static int fmix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
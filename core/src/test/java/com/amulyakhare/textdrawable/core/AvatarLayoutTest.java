@@ -0,0 +1,78 @@
+package com.amulyakhare.textdrawable.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author alvinhkh
+ */
+public class AvatarLayoutTest {
+
+    private static final float DELTA = 0.0001f;
+
+    @Test
+    public void defaultsFillTheBounds() {
+        AvatarSpec spec = new AvatarSpec.Builder().setText("AK").build();
+        AvatarLayout layout = new AvatarLayout().compute(spec, 100, 60);
+        assertEquals(100, layout.getContentWidth());
+        assertEquals(60, layout.getContentHeight());
+        assertEquals(100, layout.getBoundsWidth());
+        assertEquals(60, layout.getBoundsHeight());
+        // half the smaller side
+        assertEquals(30, layout.getTextSize(), DELTA);
+        assertEquals(50, layout.getTextX(), DELTA);
+        assertEquals(30 - 5, layout.getTextBaseline(5), DELTA);
+    }
+
+    @Test
+    public void specSizeAndFontSizeWin() {
+        AvatarSpec spec = new AvatarSpec.Builder()
+                .setWidth(40)
+                .setHeight(20)
+                .setFontSize(12)
+                .build();
+        AvatarLayout layout = new AvatarLayout().compute(spec, 100, 100);
+        assertEquals(40, layout.getContentWidth());
+        assertEquals(20, layout.getContentHeight());
+        assertEquals(100, layout.getBoundsWidth());
+        assertEquals(12, layout.getTextSize(), DELTA);
+        assertEquals(20, layout.getTextX(), DELTA);
+        assertEquals(10, layout.getTextBaseline(0), DELTA);
+    }
+
+    @Test
+    public void borderIsInsetByHalfItsThickness() {
+        AvatarLayout layout = new AvatarLayout().compute(-1, -1, -1, 4, 10, 20, 50, 30);
+        assertEquals(12, layout.getBorderLeft(), DELTA);
+        assertEquals(22, layout.getBorderTop(), DELTA);
+        assertEquals(58, layout.getBorderRight(), DELTA);
+        assertEquals(48, layout.getBorderBottom(), DELTA);
+        assertEquals(35, layout.getTextX(), DELTA);
+        assertEquals(35, layout.getTextBaseline(0), DELTA);
+    }
+
+    @Test
+    public void tinyBoundsLeaveNoRoomForText() {
+        AvatarLayout layout = new AvatarLayout().compute(-1, -1, -1, 0, 0, 0, 1, 1);
+        assertEquals(0, layout.getTextSize(), DELTA);
+    }
+
+    @Test
+    public void layoutIsReused() {
+        AvatarLayout layout = new AvatarLayout();
+        AvatarSpec spec = new AvatarSpec.Builder().build();
+        assertSame(layout, layout.compute(spec, 10, 10));
+        layout.compute(spec, 80, 80);
+        assertEquals(80, layout.getContentWidth());
+        assertEquals(40, layout.getTextSize(), DELTA);
+    }
+
+    @Test
+    public void darkerShadeIsOpaqueAndDarker() {
+        assertEquals(0xffe5e5e5, AvatarLayout.darkerShade(0xffffffff));
+        assertEquals(0xff000000, AvatarLayout.darkerShade(0x00000000));
+        assertEquals(0xff5a2d00, AvatarLayout.darkerShade(0x80643200));
+    }
+}
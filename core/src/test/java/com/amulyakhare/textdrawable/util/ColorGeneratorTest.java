@@ -0,0 +1,68 @@
+package com.amulyakhare.textdrawable.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author alvinhkh
+ */
+public class ColorGeneratorTest {
+
+    private static final ColorGenerator[] GENERATORS = {
+            ColorGenerator.MATERIAL,
+            ColorGenerator.MATERIAL.withKeyHasher(KeyHasher.MURMUR3),
+            ColorGenerator.DEFAULT.withMemo(64),
+            ColorGenerator.DEFAULT.withKeyHasher(KeyHasher.MURMUR3).withMemo(64)
+    };
+
+    @Test
+    public void intKeysMatchBoxedIntegers() {
+        for (ColorGenerator generator : GENERATORS) {
+            for (int key = -1000; key <= 1000; key++) {
+                assertEquals(generator.getColor((Object) key), generator.getColor(key));
+            }
+            assertEquals(generator.getColor((Object) Integer.MIN_VALUE),
+                    generator.getColor(Integer.MIN_VALUE));
+        }
+    }
+
+    @Test
+    public void longKeysMatchBoxedLongs() {
+        for (ColorGenerator generator : GENERATORS) {
+            for (long key = -1000; key <= 1000; key++) {
+                long wide = key * 0x100000001L;
+                assertEquals(generator.getColor((Object) wide), generator.getColor(wide));
+            }
+        }
+    }
+
+    @Test
+    public void textKeysMatchWhateverTheirType() {
+        for (ColorGenerator generator : GENERATORS) {
+            for (int i = 0; i < 200; i++) {
+                String key = "user" + i + "@example.com";
+                int expected = generator.getColor((Object) key);
+                assertEquals(expected, generator.getColor(new StringBuilder(key)));
+                // twice, so that memoized lookups are compared as well
+                assertEquals(expected, generator.getColor((CharSequence) key));
+                assertEquals(expected, generator.getColor((CharSequence) key));
+            }
+        }
+    }
+
+    @Test
+    public void randomColorsComeFromThePalette() {
+        ColorGenerator generator = ColorGenerator.create(0xff000001, 0xff000002);
+        for (int i = 0; i < 100; i++) {
+            int color = generator.getRandomColor();
+            assertTrue(color == 0xff000001 || color == 0xff000002);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyPaletteIsRejected() {
+        ColorGenerator.create();
+    }
+}
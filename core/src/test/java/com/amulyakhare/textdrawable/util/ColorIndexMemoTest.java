@@ -0,0 +1,73 @@
+package com.amulyakhare.textdrawable.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author alvinhkh
+ */
+public class ColorIndexMemoTest {
+
+    @Test
+    public void capacityIsRoundedUpToAPowerOfTwo() {
+        assertEquals(4, new ColorIndexMemo(1).capacity());
+        assertEquals(64, new ColorIndexMemo(64).capacity());
+        assertEquals(128, new ColorIndexMemo(65).capacity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroCapacityIsRejected() {
+        new ColorIndexMemo(0);
+    }
+
+    @Test
+    public void returnsWhatWasPut() {
+        ColorIndexMemo memo = new ColorIndexMemo(64);
+        assertEquals(-1, memo.get("alice"));
+        memo.put("alice", 3);
+        memo.put("bob", 7);
+        assertEquals(3, memo.get("alice"));
+        assertEquals(7, memo.get("bob"));
+        // equal but not identical keys hit as well
+        assertEquals(3, memo.get(new String("alice")));
+    }
+
+    @Test
+    public void collidingKeysAreToldApart() {
+        // "Aa" and "BB" have the same String.hashCode()
+        ColorIndexMemo memo = new ColorIndexMemo(16);
+        memo.put("Aa", 1);
+        assertEquals(-1, memo.get("BB"));
+        memo.put("BB", 2);
+        assertEquals(1, memo.get("Aa"));
+        assertEquals(2, memo.get("BB"));
+    }
+
+    @Test
+    public void fullProbeWindowReplacesTheHomeSlot() {
+        // equal hash codes, so all of them probe the same four slots
+        String[] keys = {"AaAaAa", "AaAaBB", "AaBBAa", "AaBBBB", "BBAaAa"};
+        ColorIndexMemo memo = new ColorIndexMemo(16);
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(keys[0].hashCode(), keys[i].hashCode());
+            memo.put(keys[i], i);
+        }
+        assertEquals(-1, memo.get(keys[0]));
+        for (int i = 1; i < keys.length; i++) {
+            assertEquals(i, memo.get(keys[i]));
+        }
+    }
+
+    @Test
+    public void generatorWithMemoGivesTheSameColors() {
+        ColorGenerator plain = ColorGenerator.MATERIAL;
+        ColorGenerator memoized = ColorGenerator.MATERIAL.withMemo(8);
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 100; i++) {
+                String key = "sender" + i;
+                assertEquals(plain.getColor(key), memoized.getColor(key));
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.amulyakhare.textdrawable.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * {@link KeyHasher#MURMUR3} matches Guava's murmur3_32, and every overload of a hasher agrees
+ * with {@link KeyHasher#hash(Object)} of the boxed key.
+ *
+ * @author alvinhkh
+ */
+public class KeyHasherTest {
+
+    private static final KeyHasher[] HASHERS = {KeyHasher.JAVA, KeyHasher.MURMUR3};
+
+    private static final int[] INTS = {0, 1, -1, 42, -42, Integer.MAX_VALUE, Integer.MIN_VALUE};
+
+    private static final long[] LONGS = {0L, 1L, -1L, 42L, -42L, Long.MAX_VALUE, Long.MIN_VALUE,
+            1234567890123L, 1L << 32, -1L >>> 32};
+
+    // Hashing.murmur3_32().hashUnencodedChars(text).asInt(), Guava 19
+    @Test
+    public void charsMatchGuava() {
+        assertEquals(0x00000000, Murmur3.hashChars(""));
+        assertEquals(0x6f49d11a, Murmur3.hashChars("a"));
+        assertEquals(0x165860ca, Murmur3.hashChars("ab"));
+        assertEquals(0x42b016c3, Murmur3.hashChars("abc"));
+        assertEquals(0x44fa9d34, Murmur3.hashChars("abcd"));
+        assertEquals(0x89c72f5c, Murmur3.hashChars("user@gmail.com"));
+        assertEquals(0x4c59cb2b, Murmur3.hashChars("Zoë"));
+        assertEquals(0x76a23dcb, Murmur3.hashChars("中文名"));
+    }
+
+    // Hashing.murmur3_32().hashLong(value).asInt(), Guava 19
+    @Test
+    public void longsMatchGuava() {
+        assertEquals(0x63852afc, Murmur3.hashLong(0L));
+        assertEquals(0x53075d44, Murmur3.hashLong(1L));
+        assertEquals(0x627564e8, Murmur3.hashLong(-1L));
+        assertEquals(0x6f8f913e, Murmur3.hashLong(42L));
+        assertEquals(0x827144bf, Murmur3.hashLong(Long.MAX_VALUE));
+        assertEquals(0x516faf25, Murmur3.hashLong(Long.MIN_VALUE));
+        assertEquals(0x67c2795e, Murmur3.hashLong(1234567890123L));
+    }
+
+    @Test
+    public void intsHashLikeBoxedIntegers() {
+        for (KeyHasher hasher : HASHERS) {
+            for (int key : INTS) {
+                assertEquals(hasher.hash((Object) key), hasher.hash(key));
+            }
+        }
+    }
+
+    @Test
+    public void longsHashLikeBoxedLongs() {
+        for (KeyHasher hasher : HASHERS) {
+            for (long key : LONGS) {
+                assertEquals(hasher.hash((Object) key), hasher.hash(key));
+            }
+        }
+    }
+
+    @Test
+    public void textHashesTheSameWhateverItsType() {
+        for (KeyHasher hasher : HASHERS) {
+            for (String key : new String[]{"", "a", "user@gmail.com", "中文名"}) {
+                int expected = hasher.hash((Object) key);
+                assertEquals(expected, hasher.hash((CharSequence) key));
+                assertEquals(expected, hasher.hash(new StringBuilder(key)));
+                assertEquals(expected, hasher.hash((Object) new StringBuilder(key)));
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.amulyakhare.textdrawable.java2d;
+
+import com.amulyakhare.textdrawable.core.AvatarRenderer;
+import com.amulyakhare.textdrawable.core.AvatarSpec;
+import com.amulyakhare.textdrawable.core.RenderBackend;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.font.FontRenderContext;
+import java.awt.font.LineMetrics;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link RenderBackend} that draws avatars with Java2D into {@link BufferedImage}s. Works
+ * headless ({@code -Djava.awt.headless=true}), so identical avatars can be generated on servers
+ * and in plain JVM tests:
+ * <pre>
+ * AvatarSpec spec = new AvatarSpec.Builder().setText("AK").setWidth(96).setHeight(96).build();
+ * ImageIO.write(Java2DBackend.INSTANCE.render(spec), "png", file);
+ * </pre>
+ * Android font names are mapped to the logical Java fonts: {@code sans-serif*} to
+ * {@link Font#SANS_SERIF}, {@code serif} to {@link Font#SERIF} and {@code monospace} to
+ * {@link Font#MONOSPACED}; any other name is looked up as a font family.
+ *
+ * @author alvinhkh
+ */
+public class Java2DBackend implements RenderBackend<Graphics2D> {
+
+    public static final Java2DBackend INSTANCE = new Java2DBackend();
+
+    /**
+     * Fonts of size 1 by name and style, derived to the text size when drawing.
+     */
+    private final ConcurrentHashMap<String, Font> fonts = new ConcurrentHashMap<>();
+
+    /**
+     * Render the spec at its own width and height.
+     */
+    public BufferedImage render(AvatarSpec spec) {
+        if (spec.getWidth() <= 0 || spec.getHeight() <= 0) {
+            throw new IllegalArgumentException("spec has no width or height");
+        }
+        return render(spec, spec.getWidth(), spec.getHeight());
+    }
+
+    /**
+     * Render the spec into a new image of the given size. Opaque specs are rendered without an
+     * alpha channel.
+     */
+    public BufferedImage render(AvatarSpec spec, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height,
+                spec.isOpaque() ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            renderTo(g, spec, width, height);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * Render the spec at the origin of the graphics, e.g. into a cell of a larger image.
+     */
+    public void renderTo(Graphics2D g, AvatarSpec spec, int width, int height) {
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+                RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS,
+                RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+        AvatarRenderer.render(this, g, spec, width, height);
+    }
+
+    @Override
+    public void fillShape(Graphics2D g, AvatarSpec spec, float left, float top, float right,
+                          float bottom, int color) {
+        g.setColor(new Color(color, true));
+        g.fill(createShape(spec, left, top, right, bottom));
+    }
+
+    @Override
+    public void strokeShape(Graphics2D g, AvatarSpec spec, float left, float top, float right,
+                            float bottom, int color, float strokeWidth) {
+        g.setColor(new Color(color, true));
+        g.setStroke(new BasicStroke(strokeWidth));
+        g.draw(createShape(spec, left, top, right, bottom));
+    }
+
+    @Override
+    public float getTextCenterY(Graphics2D g, AvatarSpec spec, float textSize) {
+        Font font = getFont(spec, textSize);
+        FontRenderContext context = g.getFontRenderContext();
+        if (spec.getVerticalAlign() == AvatarSpec.ALIGN_GLYPH_BOUNDS) {
+            return (float) font.createGlyphVector(context, spec.getText())
+                    .getVisualBounds().getCenterY();
+        }
+        // Java2D ascent is positive upwards, Android's is negative
+        LineMetrics metrics = font.getLineMetrics(spec.getText(), context);
+        return (metrics.getDescent() - metrics.getAscent()) / 2;
+    }
+
+    @Override
+    public void drawText(Graphics2D g, AvatarSpec spec, float x, float y, float textSize) {
+        Font font = getFont(spec, textSize);
+        String text = spec.getText();
+        float width = (float) font.getStringBounds(text, g.getFontRenderContext()).getWidth();
+        g.setFont(font);
+        g.setColor(new Color(spec.getTextColor(), true));
+        g.drawString(text, x - width / 2, y);
+    }
+
+    private Font getFont(AvatarSpec spec, float textSize) {
+        // fake bold on Android, a bold face here
+        int style = spec.getFontStyle() | (spec.isBold() ? Font.BOLD : 0);
+        String key = spec.getFontName() + '#' + style;
+        Font font = fonts.get(key);
+        if (font == null) {
+            font = new Font(familyOf(spec.getFontName()), style, 1);
+            Font previous = fonts.putIfAbsent(key, font);
+            if (previous != null) {
+                font = previous;
+            }
+        }
+        return font.deriveFont(textSize);
+    }
+
+    private static String familyOf(String fontName) {
+        if (fontName.startsWith("sans-serif")) {
+            return Font.SANS_SERIF;
+        }
+        if (fontName.startsWith("serif")) {
+            return Font.SERIF;
+        }
+        if (fontName.equals("monospace")) {
+            return Font.MONOSPACED;
+        }
+        return fontName;
+    }
+
+    private static Shape createShape(AvatarSpec spec, float left, float top, float right,
+                                     float bottom) {
+        float width = right - left;
+        float height = bottom - top;
+        switch (spec.getShape()) {
+            case AvatarSpec.SHAPE_ROUND_RECT:
+                // arc sizes are diameters
+                float arc = 2 * spec.getRadius();
+                return new RoundRectangle2D.Float(left, top, width, height, arc, arc);
+            case AvatarSpec.SHAPE_ROUND:
+                return new Ellipse2D.Float(left, top, width, height);
+            case AvatarSpec.SHAPE_RECT:
+            default:
+                return new Rectangle2D.Float(left, top, width, height);
+        }
+    }
+}
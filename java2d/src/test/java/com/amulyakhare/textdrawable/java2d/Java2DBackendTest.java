@@ -0,0 +1,93 @@
+package com.amulyakhare.textdrawable.java2d;
+
+import com.amulyakhare.textdrawable.core.AvatarSpec;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Renders headless and checks pixels away from anti-aliased edges.
+ *
+ * @author alvinhkh
+ */
+public class Java2DBackendTest {
+
+    private static final int RED = 0xffff0000;
+
+    private static final int BLUE = 0xff0000ff;
+
+    @BeforeClass
+    public static void setUpClass() {
+        System.setProperty("java.awt.headless", "true");
+    }
+
+    @Test
+    public void opaqueRectFillsTheImageWithoutAlpha() {
+        AvatarSpec spec = new AvatarSpec.Builder().setColor(RED).setWidth(40).setHeight(30).build();
+        BufferedImage image = Java2DBackend.INSTANCE.render(spec);
+        assertEquals(40, image.getWidth());
+        assertEquals(30, image.getHeight());
+        assertEquals(BufferedImage.TYPE_INT_RGB, image.getType());
+        assertEquals(RED, image.getRGB(0, 0));
+        assertEquals(RED, image.getRGB(39, 29));
+    }
+
+    @Test
+    public void roundShapeLeavesTheCornersTransparent() {
+        AvatarSpec spec = new AvatarSpec.Builder()
+                .setColor(RED)
+                .setShape(AvatarSpec.SHAPE_ROUND)
+                .build();
+        BufferedImage image = Java2DBackend.INSTANCE.render(spec, 64, 64);
+        assertEquals(BufferedImage.TYPE_INT_ARGB, image.getType());
+        assertEquals(0, image.getRGB(0, 0) >>> 24);
+        assertEquals(0, image.getRGB(63, 63) >>> 24);
+        assertEquals(RED, image.getRGB(32, 4));
+    }
+
+    @Test
+    public void borderIsDrawnInsideTheBounds() {
+        AvatarSpec spec = new AvatarSpec.Builder()
+                .setColor(RED)
+                .setBorder(6)
+                .setBorderColor(BLUE)
+                .build();
+        BufferedImage image = Java2DBackend.INSTANCE.render(spec, 64, 64);
+        assertEquals(BLUE, image.getRGB(1, 32));
+        assertEquals(BLUE, image.getRGB(62, 32));
+        assertEquals(RED, image.getRGB(10, 10));
+    }
+
+    @Test
+    public void textIsDrawnNearTheCentre() {
+        AvatarSpec spec = new AvatarSpec.Builder()
+                .setColor(RED)
+                .setTextColor(BLUE)
+                .setText("W")
+                .setBold()
+                .build();
+        BufferedImage image = Java2DBackend.INSTANCE.render(spec, 96, 96);
+        int textPixels = 0;
+        for (int y = 24; y < 72; y++) {
+            for (int x = 24; x < 72; x++) {
+                if (image.getRGB(x, y) != RED) {
+                    textPixels++;
+                }
+            }
+        }
+        assertTrue(textPixels > 50);
+        // nothing outside the middle half
+        assertEquals(RED, image.getRGB(4, 4));
+        assertEquals(RED, image.getRGB(91, 91));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void specWithoutSizeIsRejected() {
+        Java2DBackend.INSTANCE.render(new AvatarSpec.Builder().build());
+    }
+}
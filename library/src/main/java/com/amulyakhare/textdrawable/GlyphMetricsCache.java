@@ -0,0 +1,112 @@
+package com.amulyakhare.textdrawable;
+
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Small LRU cache of the vertical text metrics {@link TextDrawable} needs to centre its text.
+ * Avatar texts are mostly one or two initials that repeat across many rows, so measuring each
+ * (text, typeface, size, bold) combination once saves a {@link Paint#getTextBounds} call per
+ * layout.
+ *
+ * @author alvinhkh
+ */
+final class GlyphMetricsCache {
+
+    static final int MAX_ENTRIES = 256;
+
+    private static final LinkedHashMap<Key, Metrics> cache =
+            new LinkedHashMap<Key, Metrics>(MAX_ENTRIES, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, Metrics> eldest) {
+                    return size() > MAX_ENTRIES;
+                }
+            };
+
+    private GlyphMetricsCache() {
+    }
+
+    /**
+     * Return the metrics of the text drawn with the paint's typeface, size and bold setting.
+     */
+    static Metrics get(Paint paint, String text) {
+        Key key = new Key(text, paint.getTypeface(), paint.getTextSize(), paint.isFakeBoldText());
+        synchronized (cache) {
+            Metrics metrics = cache.get(key);
+            if (metrics != null) {
+                return metrics;
+            }
+        }
+        Rect bounds = new Rect();
+        paint.getTextBounds(text, 0, text.length(), bounds);
+        Metrics metrics = new Metrics(bounds.exactCenterY(), (paint.descent() + paint.ascent()) / 2);
+        synchronized (cache) {
+            cache.put(key, metrics);
+        }
+        return metrics;
+    }
+
+    static final class Metrics {
+
+        /**
+         * Vertical centre of the glyph bounds, relative to the baseline.
+         */
+        final float glyphCenterY;
+
+        /**
+         * Vertical centre between the font ascent and descent, relative to the baseline.
+         */
+        final float fontCenterY;
+
+        Metrics(float glyphCenterY, float fontCenterY) {
+            this.glyphCenterY = glyphCenterY;
+            this.fontCenterY = fontCenterY;
+        }
+    }
+
+    static final class Key {
+
+        private final String text;
+
+        private final Typeface typeface;
+
+        private final float textSize;
+
+        private final boolean isBold;
+
+        private final int hashCode;
+
+        Key(String text, Typeface typeface, float textSize, boolean isBold) {
+            this.text = text;
+            this.typeface = typeface;
+            this.textSize = textSize;
+            this.isBold = isBold;
+            int result = text.hashCode();
+            result = 31 * result + (typeface != null ? typeface.hashCode() : 0);
+            result = 31 * result + Float.floatToIntBits(textSize);
+            result = 31 * result + (isBold ? 1 : 0);
+            this.hashCode = result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key that = (Key) o;
+            return hashCode == that.hashCode
+                    && Float.compare(textSize, that.textSize) == 0
+                    && isBold == that.isBold
+                    && text.equals(that.text)
+                    && (typeface == null ? that.typeface == null : typeface.equals(that.typeface));
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
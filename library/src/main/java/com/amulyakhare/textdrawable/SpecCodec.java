@@ -0,0 +1,198 @@
+package com.amulyakhare.textdrawable;
+
+import java.util.Arrays;
+
+/**
+ * Binary encoding of portable {@link TextDrawableSpec specs}, version 1:
+ * <pre>
+ * byte    version
+ * byte    flags: 1 bold, every other bit zero
+ * int32   color, text color, border color
+ * varint  shape, vertical align, border thickness, font style, font size, width, height
+ * int32   radius, as float bits
+ * string  text, font name
+ * </pre>
+ * Int32s are big-endian, varints are zigzag encoded base 128 with the low group first, and
+ * strings are their byte length as a varint followed by their chars in the modified UTF-8 of
+ * {@link java.io.DataOutput#writeUTF}, without its length limit: each char is one to three
+ * bytes, and NUL is the two bytes {@code C0 80}, never a zero byte. Decoding rejects zero bytes
+ * and longer than necessary forms of a char.
+ *
+ * @author alvinhkh
+ */
+final class SpecCodec {
+
+    static final int VERSION = 1;
+
+    static final int FLAG_BOLD = 1;
+
+    static final int KNOWN_FLAGS = FLAG_BOLD;
+
+    private static final int MAX_VARINT_BYTES = 5;
+
+    private SpecCodec() {
+    }
+
+    static byte[] encode(TextDrawableSpec spec) {
+        Writer writer = new Writer(32 + spec.text.length() + spec.fontName.length());
+        writer.writeByte(VERSION);
+        // portable specs have no drawable, so there is nothing to rasterize
+        writer.writeByte(spec.isBold ? FLAG_BOLD : 0);
+        writer.writeInt(spec.color);
+        writer.writeInt(spec.textColor);
+        writer.writeInt(spec.borderColor);
+        writer.writeVarint(spec.shape);
+        writer.writeVarint(spec.verticalAlign);
+        writer.writeVarint(spec.borderThickness);
+        writer.writeVarint(spec.fontStyle);
+        writer.writeVarint(spec.fontSize);
+        writer.writeVarint(spec.width);
+        writer.writeVarint(spec.height);
+        writer.writeInt(Float.floatToIntBits(spec.radius));
+        writer.writeString(spec.text);
+        writer.writeString(spec.fontName);
+        return writer.toByteArray();
+    }
+
+    /**
+     * @return the int32 at {@code offset}
+     */
+    static int readInt(byte[] data, int offset) {
+        return (data[offset] & 0xff) << 24 | (data[offset + 1] & 0xff) << 16
+                | (data[offset + 2] & 0xff) << 8 | data[offset + 3] & 0xff;
+    }
+
+    /**
+     * Read the varint at {@code position[0]}, advancing it past the varint.
+     *
+     * @throws IllegalArgumentException if the varint is malformed or runs past {@code end}
+     */
+    static int readVarint(byte[] data, int[] position, int end) {
+        int offset = position[0];
+        int value = 0;
+        for (int shift = 0; shift < 7 * MAX_VARINT_BYTES; shift += 7) {
+            if (offset >= end) {
+                throw new IllegalArgumentException("truncated spec");
+            }
+            int b = data[offset++];
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                position[0] = offset;
+                return (value >>> 1) ^ -(value & 1);
+            }
+        }
+        throw new IllegalArgumentException("malformed varint");
+    }
+
+    /**
+     * Decode {@code length} bytes of modified UTF-8.
+     *
+     * @throws IllegalArgumentException if the bytes are not valid modified UTF-8, or encode a
+     *                                  char in any but its shortest form
+     */
+    static String readString(byte[] data, int offset, int length) {
+        char[] chars = new char[length];
+        int count = 0;
+        int end = offset + length;
+        while (offset < end) {
+            int b = data[offset++] & 0xff;
+            int c;
+            if (b < 0x80) {
+                c = b;
+                if (c == 0) {
+                    throw new IllegalArgumentException("malformed string");
+                }
+            } else if ((b & 0xe0) == 0xc0 && offset < end) {
+                c = (b & 0x1f) << 6 | continuation(data[offset++]);
+                if (c != 0 && c < 0x80) {
+                    throw new IllegalArgumentException("malformed string");
+                }
+            } else if ((b & 0xf0) == 0xe0 && offset + 1 < end) {
+                c = (b & 0x0f) << 12 | continuation(data[offset++]) << 6;
+                c |= continuation(data[offset++]);
+                if (c < 0x800) {
+                    throw new IllegalArgumentException("malformed string");
+                }
+            } else {
+                throw new IllegalArgumentException("malformed string");
+            }
+            chars[count++] = (char) c;
+        }
+        return new String(chars, 0, count);
+    }
+
+    private static int continuation(byte b) {
+        if ((b & 0xc0) != 0x80) {
+            throw new IllegalArgumentException("malformed string");
+        }
+        return b & 0x3f;
+    }
+
+    private static final class Writer {
+
+        private byte[] buffer;
+
+        private int count;
+
+        Writer(int capacity) {
+            buffer = new byte[capacity];
+        }
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[count++] = (byte) value;
+        }
+
+        void writeInt(int value) {
+            ensureCapacity(4);
+            buffer[count++] = (byte) (value >>> 24);
+            buffer[count++] = (byte) (value >>> 16);
+            buffer[count++] = (byte) (value >>> 8);
+            buffer[count++] = (byte) value;
+        }
+
+        void writeVarint(int value) {
+            ensureCapacity(MAX_VARINT_BYTES);
+            int zigzag = (value << 1) ^ (value >> 31);
+            while ((zigzag & ~0x7f) != 0) {
+                buffer[count++] = (byte) (zigzag & 0x7f | 0x80);
+                zigzag >>>= 7;
+            }
+            buffer[count++] = (byte) zigzag;
+        }
+
+        void writeString(String value) {
+            int length = value.length();
+            int byteLength = 0;
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                byteLength += c != 0 && c < 0x80 ? 1 : c < 0x800 ? 2 : 3;
+            }
+            writeVarint(byteLength);
+            ensureCapacity(byteLength);
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c != 0 && c < 0x80) {
+                    buffer[count++] = (byte) c;
+                } else if (c < 0x800) {
+                    buffer[count++] = (byte) (0xc0 | c >> 6);
+                    buffer[count++] = (byte) (0x80 | c & 0x3f);
+                } else {
+                    buffer[count++] = (byte) (0xe0 | c >> 12);
+                    buffer[count++] = (byte) (0x80 | c >> 6 & 0x3f);
+                    buffer[count++] = (byte) (0x80 | c & 0x3f);
+                }
+            }
+        }
+
+        byte[] toByteArray() {
+            return count == buffer.length ? buffer : Arrays.copyOf(buffer, count);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (count + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(2 * buffer.length, count + extra));
+            }
+        }
+    }
+}
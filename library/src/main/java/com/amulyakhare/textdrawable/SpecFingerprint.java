@@ -0,0 +1,39 @@
+package com.amulyakhare.textdrawable;
+
+/**
+ * 64 bit FNV-1a over the bytes of a spec's {@link SpecCodec encoding}, finished with the
+ * MurmurHash3 64 bit mix for better avalanche. The encoding is the same on every device, process
+ * and platform, and so is the fingerprint.
+ *
+ * @author alvinhkh
+ */
+final class SpecFingerprint {
+
+    private static final long START = 0xcbf29ce484222325L;
+
+    private static final long PRIME = 0x100000001b3L;
+
+    private SpecFingerprint() {
+    }
+
+    /**
+     * @return the fingerprint of {@code length} bytes from {@code offset}, never 0
+     */
+    static long of(byte[] data, int offset, int length) {
+        long hash = START;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            hash = (hash ^ (data[i] & 0xff)) * PRIME;
+        }
+        hash = finish(hash);
+        return hash != 0 ? hash : 1;
+    }
+
+    private static long finish(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
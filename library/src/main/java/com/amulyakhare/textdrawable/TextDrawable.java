@@ -1,9 +1,11 @@
 package com.amulyakhare.textdrawable;
 
+import android.annotation.TargetApi;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.ColorFilter;
+import android.graphics.Outline;
 import android.graphics.Paint;
 import android.graphics.PixelFormat;
 import android.graphics.Rect;
@@ -16,192 +18,403 @@ import android.graphics.drawable.shapes.OvalShape;
 import android.graphics.drawable.shapes.RectShape;
 import android.graphics.drawable.shapes.RoundRectShape;
 import android.graphics.drawable.shapes.Shape;
+import android.os.Build;
 import android.support.annotation.ColorInt;
 import android.support.annotation.IntDef;
 import android.support.annotation.IntRange;
 import android.support.annotation.NonNull;
 
+import com.amulyakhare.textdrawable.core.AvatarLayout;
+import com.amulyakhare.textdrawable.core.AvatarSpec;
 import com.amulyakhare.textdrawable.util.TypefaceHelper;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * @author amulya, alvinhkh
  */
 public class TextDrawable extends ShapeDrawable {
 
-    public static final int SHAPE_RECT = 0;
-
-    public static final int SHAPE_ROUND_RECT = 1;
+    public static final int SHAPE_RECT = AvatarSpec.SHAPE_RECT;
 
-    public static final int SHAPE_ROUND = 2;
-    
-    private static final float SHADE_FACTOR = 0.9f;
+    public static final int SHAPE_ROUND_RECT = AvatarSpec.SHAPE_ROUND_RECT;
 
-    private Bitmap bitmap;
+    public static final int SHAPE_ROUND = AvatarSpec.SHAPE_ROUND;
 
-    private final int borderColor;
+    /**
+     * Vertically centre text using the font ascent and descent.
+     */
+    public static final int ALIGN_FONT_METRICS = AvatarSpec.ALIGN_FONT_METRICS;
 
-    private final Paint borderPaint;
+    /**
+     * Vertically centre text using the bounds of the actual glyphs.
+     */
+    public static final int ALIGN_GLYPH_BOUNDS = AvatarSpec.ALIGN_GLYPH_BOUNDS;
 
-    private final int borderThickness;
+    private static final int MAX_CENTRE_RASTERS = 4;
 
-    private final int fontSize;
-
-    private final int height;
+    /**
+     * Scratch layout and text paint for {@link #renderTo}, one per rendering thread.
+     */
+    private static final ThreadLocal<RenderScratch> renderScratch = new ThreadLocal<RenderScratch>() {
+        @Override
+        protected RenderScratch initialValue() {
+            return new RenderScratch();
+        }
+    };
 
-    private final String text;
+    private final Layout layout = new Layout();
 
-    private final Paint textPaint;
+    private final SharedResources resources;
 
-    private final float radius;
+    private TextDrawableState state;
 
-    @TextDrawableShape
-    private final int shape;
+    private Paint textPaint;
 
-    private final int width;
+    private boolean ownsTextPaint;
 
-    private TextDrawable(Builder builder) {
-        super(builder.getShape());
-        
-        // shape properties
-        shape = builder.shape;
-        height = builder.height;
-        width = builder.width;
-        radius = builder.radius;
+    private int textPaintGeneration;
 
-        // text and color
-        text = builder.toUpperCase ? builder.text.toUpperCase() : builder.text;
+    private Bitmap centreBitmap;
 
-        // text paint settings
-        fontSize = builder.fontSize;
-        textPaint = new Paint();
-        textPaint.setAntiAlias(true);
-        textPaint.setColor(builder.textColor);
-        textPaint.setFakeBoldText(builder.isBold);
-        textPaint.setStrokeWidth(builder.borderThickness);
-        textPaint.setStyle(Paint.Style.FILL);
-        textPaint.setTextAlign(Paint.Align.CENTER);
-        textPaint.setTypeface(builder.font);
+    private boolean mutated;
 
-        // border paint settings
-        borderThickness = builder.borderThickness;
-        borderColor = builder.borderColor;
-        borderPaint = new Paint();
-        if (borderColor == -1) borderPaint.setColor(getDarkerShade(builder.color));
-        else borderPaint.setColor(borderColor);
-        borderPaint.setStyle(Paint.Style.STROKE);
-        borderPaint.setStrokeWidth(borderThickness);
+    private TextDrawable(TextDrawableState state) {
+        // a shape of its own: ShapeDrawable resizes it to these bounds
+        super(createShape(state.spec));
+        this.state = state;
+        this.resources = state.resources;
+        textPaint = resources.textPaint;
 
         // drawable paint setColor
         Paint paint = getPaint();
-        paint.setColor(builder.color);
+        paint.setColor(state.spec.color);
+
+        updateLayout(getBounds());
+    }
+
+    /**
+     * Create a drawable with a constant state of its own, sharing the paints of the interned
+     * equivalent of the spec.
+     */
+    static TextDrawable fromSpec(TextDrawableSpec spec) {
+        return new TextDrawable(new TextDrawableState(spec.intern().getSharedResources()));
+    }
+
+    /**
+     * @return the immutable values this drawable was built from
+     */
+    public TextDrawableSpec getSpec() {
+        return state.spec;
+    }
+
+    @Override
+    protected void onBoundsChange(Rect bounds) {
+        super.onBoundsChange(bounds);
+        updateLayout(bounds);
+    }
+
+    /**
+     * Compute text size, baselines and border rect for the given bounds, so that
+     * {@link #draw(Canvas)} neither allocates nor measures text.
+     */
+    private void updateLayout(Rect r) {
+        int oldCentreWidth = layout.centreWidth;
+        int oldCentreHeight = layout.centreHeight;
+        layout.compute(resources, r.left, r.top, r.width(), r.height());
+        if (state.spec.drawable == null) {
+            if (layout.textSize > 0) {
+                updateTextPaint();
+                layout.placeText(state.spec, textPaint);
+            }
+        } else if (resources.bitmap != null) {
+            centreBitmap = resources.bitmap;
+        } else if (layout.centreWidth != oldCentreWidth || layout.centreHeight != oldCentreHeight) {
+            // rasterized again at the new size on the next draw, if rasterized at all
+            centreBitmap = null;
+        }
+    }
 
-        //custom centre drawable
-        if (builder.drawable != null) {
-            if (builder.drawable instanceof BitmapDrawable) {
-                bitmap = ((BitmapDrawable) builder.drawable).getBitmap();
+    /**
+     * Point {@link #textPaint} at a paint of the current text size with the state's alpha and
+     * colour filter, using a private copy only when the shared paint does not match.
+     */
+    private void updateTextPaint() {
+        TextDrawableState state = this.state;
+        synchronized (state) {
+            Paint shared = state.isPlain() ? resources.obtainTextPaint(layout.textSize) : null;
+            if (shared != null) {
+                textPaint = shared;
+                ownsTextPaint = false;
             } else {
-                bitmap = Bitmap.createBitmap(builder.drawable.getIntrinsicWidth(),
-                        builder.drawable.getIntrinsicHeight(),
-                        builder.drawable.getOpacity() != PixelFormat.OPAQUE ?
-                                Bitmap.Config.ARGB_8888 : Bitmap.Config.RGB_565);
-                Canvas canvas = new Canvas(bitmap);
-                builder.drawable.setBounds(0, 0, builder.drawable.getIntrinsicWidth(),
-                        builder.drawable.getIntrinsicHeight());
-                builder.drawable.draw(canvas);
+                if (!ownsTextPaint) {
+                    textPaint = new Paint();
+                    ownsTextPaint = true;
+                }
+                state.copyTextPaint(textPaint, layout.textSize);
             }
+            textPaintGeneration = state.textPaintGeneration;
         }
     }
 
-    private int getDarkerShade(@ColorInt int color) {
-        return Color.rgb((int) (SHADE_FACTOR * Color.red(color)),
-                (int) (SHADE_FACTOR * Color.green(color)),
-                (int) (SHADE_FACTOR * Color.blue(color)));
+    /**
+     * Fill the same rect that {@link #renderTo} fills, so both draw the shape alike.
+     */
+    @Override
+    protected void onDraw(Shape shape, Canvas canvas, Paint paint) {
+        drawShape(state.spec, canvas, layout.shapeRect, paint);
     }
 
     @Override
     public void draw(Canvas canvas) {
+        TextDrawableMetrics.Listener metrics = TextDrawableMetrics.listener;
+        long start = metrics != null ? System.nanoTime() : 0;
         super.draw(canvas);
-        Rect r = getBounds();
+        TextDrawableState state = this.state;
+        if (state.spec.drawable == null) {
+            if (layout.textSize > 0 && textPaintGeneration != state.textPaintGeneration) {
+                // alpha or colour filter changed, maybe through another drawable of the state
+                updateTextPaint();
+            }
+        } else if (centreBitmap == null && state.spec.rasterizeDrawable && layout.centreWidth > 0) {
+            centreBitmap = resources.obtainCentreRaster(layout.centreWidth, layout.centreHeight);
+        }
+        drawContent(resources, canvas, layout, textPaint, centreBitmap);
+        if (metrics != null) {
+            metrics.onDraw(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Draw into the canvas as if the bounds were (0, 0, width, height), without touching the
+     * bounds or any other state of this drawable. Safe to call from several threads at once,
+     * also while the drawable is drawn on the UI thread.
+     */
+    public void renderTo(@NonNull Canvas canvas, int width, int height) {
+        TextDrawableState state = this.state;
+        RenderScratch scratch = renderScratch.get();
+        Layout layout = scratch.layout;
+        layout.compute(resources, 0, 0, width, height);
+        Paint textPaint = null;
+        Bitmap centreBitmap = resources.bitmap;
+        if (state.spec.drawable == null) {
+            if (layout.textSize > 0) {
+                textPaint = scratch.textPaint;
+                state.copyTextPaint(textPaint, layout.textSize);
+                layout.placeText(state.spec, textPaint);
+            }
+        } else if (centreBitmap == null && state.spec.rasterizeDrawable && layout.centreWidth > 0) {
+            centreBitmap = resources.obtainCentreRaster(layout.centreWidth, layout.centreHeight);
+        }
+        drawShape(state.spec, canvas, layout.shapeRect, getPaint());
+        drawContent(resources, canvas, layout, textPaint, centreBitmap);
+    }
+
+    /**
+     * Draw the border and then the text or centre drawable over the filled shape.
+     */
+    private static void drawContent(SharedResources resources, Canvas canvas, Layout layout,
+                                    Paint textPaint, Bitmap centreBitmap) {
+        TextDrawableSpec spec = resources.spec;
         // draw border
-        if (borderThickness > 0) {
-            drawBorder(canvas);
-        }
-        int count = canvas.save();
-        if (bitmap == null) {
-            canvas.translate(r.left, r.top);
-        }
-        // draw text
-        int width = this.width < 0 ? r.width() : this.width;
-        int height = this.height < 0 ? r.height() : this.height;
-        int fontSize = this.fontSize < 0 ? (Math.min(width, height) / 2) : this.fontSize;
-        textPaint.setTextSize(fontSize);
-        Rect textBounds = new Rect();
-        textPaint.getTextBounds(text, 0, text.length(), textBounds);
-        canvas.drawText(text, width / 2, height / 2 - textBounds.exactCenterY(), textPaint);
-        if (bitmap == null) {
-            textPaint.setTextSize(fontSize);
-            canvas.drawText(text, width / 2, height / 2 - ((textPaint.descent() + textPaint.ascent()) / 2), textPaint);
-        } else {
-            canvas.drawBitmap(bitmap, (width - bitmap.getWidth()) / 2, (height - bitmap.getHeight()) / 2, null);
+        if (spec.borderThickness > 0) {
+            drawShape(spec, canvas, layout.borderRect, resources.borderPaint);
+        }
+        // draw either the centre drawable or the text
+        if (spec.drawable == null) {
+            if (layout.textSize > 0) {
+                canvas.drawText(spec.text, layout.textX, layout.textY, textPaint);
+            }
+        } else if (layout.centreWidth > 0) {
+            if (centreBitmap == null) {
+                resources.drawCentre(canvas, layout.centreLeft, layout.centreTop,
+                        layout.centreWidth, layout.centreHeight);
+            } else {
+                canvas.drawBitmap(centreBitmap, layout.centreLeft, layout.centreTop, null);
+            }
+        }
+    }
+
+    private static Shape createShape(TextDrawableSpec spec) {
+        float radius = spec.radius;
+        switch (spec.shape) {
+            case SHAPE_ROUND_RECT:
+                float[] radii = {radius, radius, radius, radius, radius, radius, radius, radius};
+                return new RoundRectShape(radii, null, null);
+            case SHAPE_ROUND:
+                return new OvalShape();
+            case SHAPE_RECT:
+            default:
+                return new RectShape();
         }
-        canvas.restoreToCount(count);
+    }
 
+    private static void drawShape(TextDrawableSpec spec, Canvas canvas, RectF rect, Paint paint) {
+        switch (spec.shape) {
+            case SHAPE_ROUND_RECT:
+                canvas.drawRoundRect(rect, spec.radius, spec.radius, paint);
+                break;
+            case SHAPE_ROUND:
+                canvas.drawOval(rect, paint);
+                break;
+            case SHAPE_RECT:
+            default:
+                canvas.drawRect(rect, paint);
+                break;
+        }
     }
 
-    private void drawBorder(Canvas canvas) {
-        RectF rect = new RectF(getBounds());
-        rect.inset(borderThickness / 2, borderThickness / 2);
-        switch (shape) {
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    @Override
+    public void getOutline(@NonNull Outline outline) {
+        switch (state.spec.shape) {
             case SHAPE_ROUND_RECT:
-                canvas.drawRoundRect(rect, radius, radius, borderPaint);
+                outline.setRoundRect(getBounds(), state.spec.radius);
                 break;
             case SHAPE_ROUND:
-                canvas.drawOval(rect, borderPaint);
+                outline.setOval(getBounds());
                 break;
             case SHAPE_RECT:
             default:
-                canvas.drawRect(rect, borderPaint);
+                outline.setRect(getBounds());
                 break;
         }
     }
 
+    /**
+     * Set the alpha of the text. Every built drawable has its own; drawables created from its
+     * {@link #getConstantState() constant state} share it until {@link #mutate()} is called.
+     */
     @Override
     public void setAlpha(@IntRange(from = 0, to = 255) int alpha) {
-        textPaint.setAlpha(alpha);
+        state.setAlpha(alpha);
     }
 
+    /**
+     * Set the colour filter of the text, shared like {@link #setAlpha(int) alpha}.
+     */
     @Override
     public void setColorFilter(ColorFilter cf) {
-        textPaint.setColorFilter(cf);
+        state.setColorFilter(cf);
     }
 
+    @Override
+    public Drawable mutate() {
+        if (!mutated && super.mutate() == this) {
+            // the shared paints are never changed, so only the alpha and colour filter are copied
+            state = new TextDrawableState(state);
+            mutated = true;
+        }
+        return this;
+    }
+
+    @Override
+    public ConstantState getConstantState() {
+        state.changingConfigurations = getChangingConfigurations();
+        return state;
+    }
+
+    /**
+     * A rectangle filled with an opaque colour covers its bounds; the border and centre are
+     * drawn inside the fill, so they cannot make it translucent.
+     */
     @Override
     public int getOpacity() {
+        if (state.spec.isOpaque() && getPaint().getAlpha() == 255) {
+            return PixelFormat.OPAQUE;
+        }
         return PixelFormat.TRANSLUCENT;
     }
 
     @Override
     public int getIntrinsicWidth() {
-        return width;
+        return state.spec.width;
     }
 
     @Override
     public int getIntrinsicHeight() {
-        return height;
+        return state.spec.height;
     }
 
+    /**
+     * Render into a bitmap of the intrinsic size, or 1x1 without one. Opaque drawables are
+     * rendered as {@link Bitmap.Config#RGB_565}, others as {@link Bitmap.Config#ARGB_8888}. The
+     * bitmap is taken from {@link TextDrawableBitmapPool#getInstance()} when the pool has a
+     * matching one.
+     */
     public Bitmap getBitmap() {
+        return getBitmap(null, null);
+    }
+
+    /**
+     * Like {@link #getBitmap()}, but render into {@code reuse} when it is mutable and has the
+     * same size and config as the result would have. Otherwise {@code reuse} is left untouched,
+     * e.g. to stay on screen, and a new bitmap is returned.
+     */
+    public Bitmap getBitmap(Bitmap reuse) {
+        return getBitmap(reuse, null);
+    }
+
+    /**
+     * Like {@link #getBitmap()}, but in the given config:
+     * <ul>
+     * <li>{@link Bitmap.Config#RGB_565} halves the memory of {@code ARGB_8888}; outside a round
+     * shape is black rather than transparent.</li>
+     * <li>{@link Bitmap.Config#ALPHA_8} keeps only the coverage of the shape, a quarter of the
+     * memory, for use as a mask that is tinted with the paint colour when drawn.</li>
+     * </ul>
+     */
+    public Bitmap getBitmap(@NonNull Bitmap.Config config) {
+        return getBitmap(null, config);
+    }
+
+    /**
+     * {@link #getBitmap(Bitmap)} in the given config, or the default config if it is null.
+     */
+    public Bitmap getBitmap(Bitmap reuse, Bitmap.Config config) {
+        TextDrawableMetrics.Listener metrics = TextDrawableMetrics.listener;
+        long start = metrics != null ? System.nanoTime() : 0;
+        boolean sized = getIntrinsicWidth() > 0 && getIntrinsicHeight() > 0;
+        int width = sized ? getIntrinsicWidth() : 1;
+        int height = sized ? getIntrinsicHeight() : 1;
+        if (config == null) {
+            config = getOpacity() != PixelFormat.OPAQUE ?
+                    Bitmap.Config.ARGB_8888 : Bitmap.Config.RGB_565;
+        }
+        int allocated = 0;
         Bitmap bitmap;
-        if (getIntrinsicWidth() <= 0 || getIntrinsicHeight() <= 0) {
-            bitmap = Bitmap.createBitmap(1, 1, getOpacity() != PixelFormat.OPAQUE ?
-                    Bitmap.Config.ARGB_8888 : Bitmap.Config.RGB_565);
+        if (reuse != null && !reuse.isRecycled() && reuse.isMutable()
+                && reuse.getWidth() == width && reuse.getHeight() == height
+                && reuse.getConfig() == config) {
+            bitmap = reuse;
+            bitmap.eraseColor(Color.TRANSPARENT);
         } else {
-            bitmap = Bitmap.createBitmap(getIntrinsicWidth(), getIntrinsicHeight(),
-                    getOpacity() != PixelFormat.OPAQUE ? Bitmap.Config.ARGB_8888 : Bitmap.Config.RGB_565);
+            TextDrawableBitmapPool pool = TextDrawableBitmapPool.getInstance();
+            bitmap = pool.get(width, height, config);
+            if (bitmap == null) {
+                bitmap = Bitmap.createBitmap(width, height, config);
+                allocated = bitmap.getRowBytes() * bitmap.getHeight();
+            }
+        }
+        renderTo(new Canvas(bitmap), width, height);
+        if (metrics != null) {
+            metrics.onRender(System.nanoTime() - start, allocated);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Clear the mutable bitmap and render into the whole of it, whatever its size.
+     *
+     * @return the bitmap
+     */
+    public Bitmap renderInto(@NonNull Bitmap bitmap) {
+        if (!bitmap.isMutable()) {
+            throw new IllegalArgumentException("bitmap is immutable");
         }
-        Canvas canvas = new Canvas(bitmap);
-        setBounds(0, 0, canvas.getWidth(), canvas.getHeight());
-        draw(canvas);
+        bitmap.eraseColor(Color.TRANSPARENT);
+        renderTo(new Canvas(bitmap), bitmap.getWidth(), bitmap.getHeight());
         return bitmap;
     }
 
@@ -213,18 +426,26 @@ public class TextDrawable extends ShapeDrawable {
 
         private int color;
 
+        // drawable, radius and textColor have always been public; like the values of the
+        // setters, they are read when a spec or drawable is built
         public Drawable drawable;
 
         private Typeface font;
 
+        private String fontName;
+
         private int fontSize;
 
+        private int fontStyle;
+
         private int height;
 
         private boolean isBold;
 
         public float radius;
 
+        private boolean rasterizeDrawable;
+
         private int shape;
 
         private String text;
@@ -233,20 +454,26 @@ public class TextDrawable extends ShapeDrawable {
 
         private boolean toUpperCase;
 
+        private int verticalAlign;
+
         private int width;
 
         public Builder() {
             borderColor = -1;
             borderThickness = 0;
             color = Color.GRAY;
-            font = TypefaceHelper.get("sans-serif-light", Typeface.NORMAL);
+            font = null;
+            fontName = AvatarSpec.DEFAULT_FONT_NAME;
             fontSize = -1;
+            fontStyle = Typeface.NORMAL;
             height = -1;
             isBold = false;
+            rasterizeDrawable = false;
             shape = SHAPE_RECT;
             text = "";
             textColor = Color.WHITE;
             toUpperCase = false;
+            verticalAlign = ALIGN_FONT_METRICS;
             width = -1;
         }
 
@@ -275,13 +502,21 @@ public class TextDrawable extends ShapeDrawable {
             return this;
         }
 
+        /**
+         * Use the typeface as is. Specs built with it have no font name, so they cannot be
+         * rendered by other backends, see {@link TextDrawableSpec#toAvatarSpec()}.
+         */
         public Builder setFont(@NonNull Typeface font) {
             this.font = font;
+            this.fontName = null;
+            this.fontStyle = Typeface.NORMAL;
             return this;
         }
 
         public Builder setFont(@NonNull String name, int style) {
             this.font = TypefaceHelper.get(name, style);
+            this.fontName = name;
+            this.fontStyle = style;
             return this;
         }
 
@@ -300,6 +535,16 @@ public class TextDrawable extends ShapeDrawable {
             return this;
         }
 
+        /**
+         * Draw a centre drawable that is not a {@link BitmapDrawable} from a bitmap rasterized
+         * once per size, instead of drawing it into the canvas on every draw. Trades memory for
+         * speed with drawables that are expensive to draw.
+         */
+        public Builder setRasterizeDrawable() {
+            this.rasterizeDrawable = true;
+            return this;
+        }
+
         public Builder setShape(@TextDrawableShape int shape) {
             this.shape = shape;
             return this;
@@ -315,29 +560,371 @@ public class TextDrawable extends ShapeDrawable {
             return this;
         }
 
+        public Builder setVerticalAlign(@TextDrawableVerticalAlign int align) {
+            this.verticalAlign = align;
+            return this;
+        }
+
         public Builder setWidth(@IntRange(from = 1, to = Integer.MAX_VALUE) int width) {
             this.width = width;
             return this;
         }
 
-        private Shape getShape() {
-            switch (shape) {
-                case SHAPE_ROUND_RECT:
-                    float[] radii = {radius, radius, radius, radius, radius, radius, radius, radius};
-                    return new RoundRectShape(radii, null, null);
-                case SHAPE_ROUND:
-                    return new OvalShape();
-                case SHAPE_RECT:
-                default:
-                    return new RectShape();
-            } 
+        /**
+         * Build a drawable from the current values. Drawables built from equal values share one
+         * interned {@link TextDrawableSpec} with its paints, so a builder can be reused
+         * freely, but each has its own alpha and colour filter.
+         */
+        public TextDrawable build() {
+            return fromSpec(buildSpec());
         }
 
-        public TextDrawable build() {
-            return new TextDrawable(this);
+        /**
+         * @return an immutable snapshot of the current values, suitable as a cache key
+         */
+        public TextDrawableSpec buildSpec() {
+            Typeface font = this.font != null ? this.font : DefaultFontHolder.FONT;
+            return new TextDrawableSpec(borderColor, borderThickness, color, drawable, font,
+                    fontName, fontSize, fontStyle, height, isBold, radius, rasterizeDrawable, shape,
+                    toUpperCase ? text.toUpperCase() : text, textColor, verticalAlign, width);
         }
     }
     
+    /**
+     * Where the shape, border, text and centre go for one size of bounds.
+     */
+    private static final class Layout {
+
+        final RectF borderRect = new RectF();
+
+        final RectF shapeRect = new RectF();
+
+        float textSize;
+
+        float textX;
+
+        float textY;
+
+        int centreLeft;
+
+        int centreTop;
+
+        int centreWidth;
+
+        int centreHeight;
+
+        private final AvatarLayout avatar = new AvatarLayout();
+
+        /**
+         * Lay out everything but the text baseline, which needs a paint of {@link #textSize}.
+         */
+        void compute(SharedResources resources, int left, int top, int boundsWidth, int boundsHeight) {
+            TextDrawableSpec spec = resources.spec;
+            avatar.compute(spec.width, spec.height, spec.fontSize, spec.borderThickness,
+                    left, top, boundsWidth, boundsHeight);
+            int width = avatar.getContentWidth();
+            int height = avatar.getContentHeight();
+            textSize = avatar.getTextSize();
+            textX = avatar.getTextX();
+            if (spec.drawable != null) {
+                if (resources.bitmap != null) {
+                    centreWidth = resources.bitmap.getWidth();
+                    centreHeight = resources.bitmap.getHeight();
+                } else {
+                    fitCentre(spec.drawable, width, height);
+                }
+                centreLeft = left + (width - centreWidth) / 2;
+                centreTop = top + (height - centreHeight) / 2;
+            }
+            shapeRect.set(0, 0, boundsWidth, boundsHeight);
+            borderRect.set(avatar.getBorderLeft(), avatar.getBorderTop(),
+                    avatar.getBorderRight(), avatar.getBorderBottom());
+        }
+
+        /**
+         * Size a non-bitmap centre drawable: its intrinsic size, scaled down to fit the given
+         * size if larger, or the whole size if it has no intrinsic size.
+         */
+        private void fitCentre(Drawable drawable, int width, int height) {
+            int intrinsicWidth = drawable.getIntrinsicWidth();
+            int intrinsicHeight = drawable.getIntrinsicHeight();
+            if (width <= 0 || height <= 0) {
+                centreWidth = 0;
+                centreHeight = 0;
+            } else if (intrinsicWidth <= 0 || intrinsicHeight <= 0) {
+                centreWidth = width;
+                centreHeight = height;
+            } else if (intrinsicWidth > width || intrinsicHeight > height) {
+                float scale = Math.min((float) width / intrinsicWidth, (float) height / intrinsicHeight);
+                centreWidth = Math.max(1, Math.round(intrinsicWidth * scale));
+                centreHeight = Math.max(1, Math.round(intrinsicHeight * scale));
+            } else {
+                centreWidth = intrinsicWidth;
+                centreHeight = intrinsicHeight;
+            }
+        }
+
+        void placeText(TextDrawableSpec spec, Paint textPaint) {
+            GlyphMetricsCache.Metrics metrics = GlyphMetricsCache.get(textPaint, spec.text);
+            textY = avatar.getTextBaseline(spec.verticalAlign == ALIGN_GLYPH_BOUNDS ?
+                    metrics.glyphCenterY : metrics.fontCenterY);
+        }
+    }
+
+    private static final class RenderScratch {
+
+        final Layout layout = new Layout();
+
+        final Paint textPaint = new Paint();
+    }
+
+    /**
+     * Resolves the default font once, on first use, instead of in every Builder constructor.
+     */
+    private static class DefaultFontHolder {
+        static final Typeface FONT = TypefaceHelper.get(AvatarSpec.DEFAULT_FONT_NAME, Typeface.NORMAL);
+    }
+
+    /**
+     * Return the typeface a builder uses for a font set by name, as in {@link Builder#buildSpec()}.
+     */
+    static Typeface resolveFont(String name, int style) {
+        Typeface font = TypefaceHelper.get(name, style);
+        return font != null ? font : DefaultFontHolder.FONT;
+    }
+
+    /**
+     * Paints and centre bitmaps shared by every drawable with the same
+     * {@link TextDrawableSpec}. None of them is changed once set up: alpha and colour filter live
+     * in each {@link TextDrawableState}. The shared text paint takes the text size of the first
+     * layout and is never resized after that; drawables laid out at other sizes keep a private
+     * copy. A centre drawable that is not a {@link BitmapDrawable} is drawn directly, or if the
+     * spec asks for it, rasterized on first draw, once per size.
+     * <p>
+     * The shape is not shared, as {@link ShapeDrawable} resizes it to each drawable's bounds;
+     * like any {@code ShapeDrawable}, each drawable also has a fill paint of its own.
+     */
+    static final class SharedResources {
+
+        final TextDrawableSpec spec;
+
+        /**
+         * The centre bitmap of a {@link BitmapDrawable}, otherwise null.
+         */
+        final Bitmap bitmap;
+
+        /**
+         * Guards any other centre drawable, which every drawable of the spec draws, while its
+         * bounds are set and it is drawn.
+         */
+        private final Object centreLock;
+
+        /**
+         * Rasters of any other centre drawable by size, if the spec asks for them; guarded by
+         * {@link #centreLock}.
+         */
+        private final LinkedHashMap<Long, Bitmap> centreRasters;
+
+        final Paint borderPaint;
+
+        /**
+         * Text paint without alpha or colour filter.
+         */
+        final Paint textPaint;
+
+        private boolean textPaintSized;
+
+        SharedResources(TextDrawableSpec spec) {
+            this.spec = spec;
+
+            // text paint settings
+            textPaint = new Paint();
+            textPaint.setAntiAlias(true);
+            textPaint.setColor(spec.textColor);
+            textPaint.setFakeBoldText(spec.isBold);
+            textPaint.setStrokeWidth(spec.borderThickness);
+            textPaint.setStyle(Paint.Style.FILL);
+            textPaint.setTextAlign(Paint.Align.CENTER);
+            textPaint.setTypeface(spec.font);
+            if (spec.fontSize > 0) {
+                textPaint.setTextSize(spec.fontSize);
+                textPaintSized = true;
+            }
+
+            // border paint settings
+            borderPaint = new Paint();
+            if (spec.borderColor == -1) borderPaint.setColor(AvatarLayout.darkerShade(spec.color));
+            else borderPaint.setColor(spec.borderColor);
+            borderPaint.setStyle(Paint.Style.STROKE);
+            borderPaint.setStrokeWidth(spec.borderThickness);
+
+            //custom centre drawable
+            Drawable drawable = spec.drawable;
+            if (drawable instanceof BitmapDrawable) {
+                bitmap = ((BitmapDrawable) drawable).getBitmap();
+                centreLock = null;
+                centreRasters = null;
+            } else if (drawable != null) {
+                bitmap = null;
+                centreLock = new Object();
+                centreRasters = !spec.rasterizeDrawable ? null : new LinkedHashMap<Long, Bitmap>(MAX_CENTRE_RASTERS, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<Long, Bitmap> eldest) {
+                        // not recycled: a drawable may still be drawing it
+                        return size() > MAX_CENTRE_RASTERS;
+                    }
+                };
+            } else {
+                bitmap = null;
+                centreLock = null;
+                centreRasters = null;
+            }
+        }
+
+        /**
+         * Return {@link #textPaint} if it has the given text size, sizing it on first use, or
+         * null if it has another size.
+         */
+        synchronized Paint obtainTextPaint(float textSize) {
+            if (!textPaintSized) {
+                textPaint.setTextSize(textSize);
+                textPaintSized = true;
+            }
+            return textPaint.getTextSize() == textSize ? textPaint : null;
+        }
+
+        /**
+         * Copy {@link #textPaint} into the given paint and set its size.
+         */
+        synchronized void copyTextPaint(Paint paint, float textSize) {
+            paint.set(textPaint);
+            paint.setTextSize(textSize);
+        }
+
+        /**
+         * Return the centre drawable rasterized at the given size, drawing it on first use.
+         */
+        Bitmap obtainCentreRaster(int width, int height) {
+            Long key = ((long) width << 32) | height;
+            synchronized (centreLock) {
+                Bitmap raster = centreRasters.get(key);
+                if (raster == null) {
+                    Drawable drawable = spec.drawable;
+                    raster = Bitmap.createBitmap(width, height,
+                            drawable.getOpacity() != PixelFormat.OPAQUE ?
+                                    Bitmap.Config.ARGB_8888 : Bitmap.Config.RGB_565);
+                    Canvas canvas = new Canvas(raster);
+                    drawable.setBounds(0, 0, width, height);
+                    drawable.draw(canvas);
+                    centreRasters.put(key, raster);
+                }
+                return raster;
+            }
+        }
+
+        /**
+         * Draw the centre drawable straight into the canvas, moving it only if its bounds differ.
+         */
+        void drawCentre(Canvas canvas, int left, int top, int width, int height) {
+            Drawable drawable = spec.drawable;
+            synchronized (centreLock) {
+                Rect bounds = drawable.getBounds();
+                if (bounds.left != left || bounds.top != top
+                        || bounds.width() != width || bounds.height() != height) {
+                    drawable.setBounds(left, top, left + width, top + height);
+                }
+                drawable.draw(canvas);
+            }
+        }
+    }
+
+    /**
+     * Alpha and colour filter of the text, on top of the {@link SharedResources} of the spec.
+     * Every {@link Builder#build()} creates a state of its own; drawables created from it by
+     * {@link #newDrawable()} share it until they are {@link #mutate() mutated}.
+     */
+    static final class TextDrawableState extends ConstantState {
+
+        private static final int NO_ALPHA = -1;
+
+        final TextDrawableSpec spec;
+
+        final SharedResources resources;
+
+        int changingConfigurations;
+
+        /**
+         * Incremented on every change of alpha or colour filter.
+         */
+        int textPaintGeneration;
+
+        // guarded by this
+        private int alpha = NO_ALPHA;
+
+        private ColorFilter colorFilter;
+
+        TextDrawableState(SharedResources resources) {
+            this.spec = resources.spec;
+            this.resources = resources;
+        }
+
+        /**
+         * Copy for {@link TextDrawable#mutate()}.
+         */
+        TextDrawableState(TextDrawableState orig) {
+            spec = orig.spec;
+            resources = orig.resources;
+            synchronized (orig) {
+                alpha = orig.alpha;
+                colorFilter = orig.colorFilter;
+                textPaintGeneration = orig.textPaintGeneration;
+            }
+            changingConfigurations = orig.changingConfigurations;
+        }
+
+        synchronized void setAlpha(int alpha) {
+            this.alpha = alpha;
+            textPaintGeneration++;
+        }
+
+        synchronized void setColorFilter(ColorFilter colorFilter) {
+            this.colorFilter = colorFilter;
+            textPaintGeneration++;
+        }
+
+        /**
+         * @return whether the shared text paint can be drawn with as it is
+         */
+        synchronized boolean isPlain() {
+            return alpha == NO_ALPHA && colorFilter == null;
+        }
+
+        /**
+         * Copy the shared text paint into the given paint, set its size and apply this state's
+         * alpha and colour filter.
+         */
+        synchronized void copyTextPaint(Paint paint, float textSize) {
+            resources.copyTextPaint(paint, textSize);
+            if (alpha != NO_ALPHA) {
+                paint.setAlpha(alpha);
+            }
+            paint.setColorFilter(colorFilter);
+        }
+
+        @Override
+        public Drawable newDrawable() {
+            return new TextDrawable(this);
+        }
+
+        @Override
+        public int getChangingConfigurations() {
+            return changingConfigurations;
+        }
+    }
+
     @IntDef({SHAPE_RECT, SHAPE_ROUND_RECT, SHAPE_ROUND})
     public @interface TextDrawableShape { }
+
+    @IntDef({ALIGN_FONT_METRICS, ALIGN_GLYPH_BOUNDS})
+    public @interface TextDrawableVerticalAlign { }
 }
\ No newline at end of file
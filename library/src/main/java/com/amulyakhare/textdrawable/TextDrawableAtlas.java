@@ -0,0 +1,294 @@
+package com.amulyakhare.textdrawable;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.PorterDuff;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Packs many same-size {@link TextDrawable}s into a few large page bitmaps. Each page is split
+ * into shelves one cell high, and each shelf into cells one avatar wide, so a grid of hundreds
+ * of avatars costs a handful of bitmaps and texture uploads instead of one per avatar.
+ * <p>
+ * {@link #add(TextDrawable.Builder)} renders the avatar into a free cell, or reuses the cell of
+ * an equal spec, and returns a lightweight drawable that blits from it. When every page is full
+ * the least recently added or requested avatar is evicted to make room. Drawables already handed
+ * out for an evicted avatar detach from the atlas: they render the avatar into a bitmap of their
+ * own and draw that, with the same alpha and colour filter, so they never show the cell's next
+ * avatar or a blank. Pages are never recycled: {@link #evictAll()} leaves them to the garbage
+ * collector once no drawable draws from them.
+ * <p>
+ * The atlas is not thread safe. Call its methods, and draw its drawables, on the UI thread.
+ *
+ * @author alvinhkh
+ */
+public class TextDrawableAtlas {
+
+    private static final int DEFAULT_PAGE_SIZE = 1024;
+
+    private static final int DEFAULT_MAX_PAGES = 4;
+
+    private final int cellWidth;
+
+    private final int cellHeight;
+
+    private final int columns;
+
+    private final int rows;
+
+    private final int pageSize;
+
+    private final int maxPages;
+
+    private final ArrayList<Page> pages = new ArrayList<>();
+
+    private final LinkedHashMap<TextDrawableSpec, Cell> cells = new LinkedHashMap<>(0, 0.75f, true);
+
+    public TextDrawableAtlas(int cellWidth, int cellHeight) {
+        this(cellWidth, cellHeight, DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES);
+    }
+
+    /**
+     * @param cellWidth  width of every avatar, in pixels
+     * @param cellHeight height of every avatar, in pixels
+     * @param pageSize   width and height of each page bitmap, in pixels
+     * @param maxPages   maximum number of page bitmaps
+     */
+    public TextDrawableAtlas(int cellWidth, int cellHeight, int pageSize, int maxPages) {
+        if (cellWidth <= 0 || cellHeight <= 0) {
+            throw new IllegalArgumentException("cell size <= 0");
+        }
+        if (cellWidth > pageSize || cellHeight > pageSize) {
+            throw new IllegalArgumentException("cell larger than page");
+        }
+        if (maxPages <= 0) {
+            throw new IllegalArgumentException("maxPages <= 0");
+        }
+        this.cellWidth = cellWidth;
+        this.cellHeight = cellHeight;
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+        this.columns = pageSize / cellWidth;
+        this.rows = pageSize / cellHeight;
+    }
+
+    public Drawable add(@NonNull TextDrawable.Builder builder) {
+        return add(builder.buildSpec());
+    }
+
+    /**
+     * Return a drawable showing the spec, rendering it into the atlas if it is not there yet.
+     */
+    public Drawable add(@NonNull TextDrawableSpec spec) {
+        Cell cell = cells.get(spec);
+        if (cell == null) {
+            cell = allocate();
+            try {
+                render(spec, cell);
+            } catch (RuntimeException e) {
+                release(cell);
+                throw e;
+            }
+            cells.put(spec, cell);
+        }
+        return new RegionDrawable(cell, spec, cellWidth, cellHeight);
+    }
+
+    public boolean evict(@NonNull TextDrawable.Builder builder) {
+        return evict(builder.buildSpec());
+    }
+
+    /**
+     * Free the cell holding the spec. Drawables returned for it detach and draw it themselves.
+     */
+    public boolean evict(@NonNull TextDrawableSpec spec) {
+        Cell cell = cells.remove(spec);
+        if (cell == null) {
+            return false;
+        }
+        release(cell);
+        return true;
+    }
+
+    /**
+     * Free every cell and drop all pages.
+     */
+    public void evictAll() {
+        for (Cell cell : cells.values()) {
+            cell.page = null;
+        }
+        cells.clear();
+        pages.clear();
+    }
+
+    /**
+     * @return the number of avatars currently in the atlas
+     */
+    public int size() {
+        return cells.size();
+    }
+
+    public int getPageCount() {
+        return pages.size();
+    }
+
+    private Cell allocate() {
+        for (int i = 0; i < pages.size(); i++) {
+            Cell cell = pages.get(i).allocate();
+            if (cell != null) {
+                return cell;
+            }
+        }
+        if (pages.size() < maxPages) {
+            Page page = new Page(Bitmap.createBitmap(pageSize, pageSize, Bitmap.Config.ARGB_8888));
+            pages.add(page);
+            return page.allocate();
+        }
+        // every page is full, reuse the least recently used cell
+        Iterator<Cell> iterator = cells.values().iterator();
+        Cell eldest = iterator.next();
+        iterator.remove();
+        Page page = eldest.page;
+        release(eldest);
+        return page.allocate();
+    }
+
+    private void release(Cell cell) {
+        Page page = cell.page;
+        cell.page = null;
+        page.free.add(cell.index);
+    }
+
+    private void render(TextDrawableSpec spec, Cell cell) {
+        Rect bounds = cell.bounds;
+        Canvas canvas = cell.page.canvas;
+        int count = canvas.save();
+        canvas.clipRect(bounds);
+        canvas.drawColor(0, PorterDuff.Mode.CLEAR);
+        canvas.translate(bounds.left, bounds.top);
+        TextDrawable.fromSpec(spec).renderTo(canvas, bounds.width(), bounds.height());
+        canvas.restoreToCount(count);
+    }
+
+    private class Page {
+
+        final Bitmap bitmap;
+
+        final Canvas canvas;
+
+        // indices of freed cells; cells past next have never been used
+        final ArrayList<Integer> free = new ArrayList<>();
+
+        int next;
+
+        Page(Bitmap bitmap) {
+            this.bitmap = bitmap;
+            this.canvas = new Canvas(bitmap);
+        }
+
+        Cell allocate() {
+            int index;
+            if (!free.isEmpty()) {
+                index = free.remove(free.size() - 1);
+            } else if (next < columns * rows) {
+                index = next++;
+            } else {
+                return null;
+            }
+            int left = (index % columns) * cellWidth;
+            int top = (index / columns) * cellHeight;
+            return new Cell(this, index, new Rect(left, top, left + cellWidth, top + cellHeight));
+        }
+    }
+
+    private static class Cell {
+
+        final Rect bounds;
+
+        final int index;
+
+        Page page;
+
+        Cell(Page page, int index, Rect bounds) {
+            this.page = page;
+            this.index = index;
+            this.bounds = bounds;
+        }
+    }
+
+    /**
+     * Draws one cell of an atlas page scaled to its bounds, or once the cell has been evicted,
+     * its own rendering of the spec. Both go through {@code paint}, so alpha and the colour
+     * filter apply to the whole avatar either way.
+     */
+    private static class RegionDrawable extends Drawable {
+
+        private final Cell cell;
+
+        private final TextDrawableSpec spec;
+
+        private final int width;
+
+        private final int height;
+
+        private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+        private Bitmap detached;
+
+        RegionDrawable(Cell cell, TextDrawableSpec spec, int width, int height) {
+            this.cell = cell;
+            this.spec = spec;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public void draw(@NonNull Canvas canvas) {
+            Page page = cell.page;
+            if (page != null) {
+                canvas.drawBitmap(page.bitmap, cell.bounds, getBounds(), paint);
+                return;
+            }
+            if (detached == null) {
+                detached = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+                TextDrawable.fromSpec(spec).renderTo(new Canvas(detached), width, height);
+            }
+            canvas.drawBitmap(detached, null, getBounds(), paint);
+        }
+
+        @Override
+        public void setAlpha(@IntRange(from = 0, to = 255) int alpha) {
+            paint.setAlpha(alpha);
+        }
+
+        @Override
+        public void setColorFilter(ColorFilter cf) {
+            paint.setColorFilter(cf);
+        }
+
+        @Override
+        public int getOpacity() {
+            return PixelFormat.TRANSLUCENT;
+        }
+
+        @Override
+        public int getIntrinsicWidth() {
+            return width;
+        }
+
+        @Override
+        public int getIntrinsicHeight() {
+            return height;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.amulyakhare.textdrawable;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.support.annotation.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * A bounded pool of mutable bitmaps, grouped by width, height and config, that
+ * {@link TextDrawable#getBitmap()} draws from before allocating a new one. Bitmaps handed back
+ * with {@link #put(Bitmap)} belong to the pool; the oldest are recycled when it grows beyond
+ * its maximum size. Bitmaps the pool cannot use are left alone, never recycled. Only hand back bitmaps that nothing draws any more, e.g. not one still set
+ * on an {@code ImageView} or returned by a {@link TextDrawableCache}, whose evicted bitmaps are
+ * left to the garbage collector because callers may still hold them.
+ *
+ * @author alvinhkh
+ */
+public class TextDrawableBitmapPool {
+
+    private static final int DEFAULT_MEMORY_FRACTION = 16;
+
+    private final HashMap<Key, ArrayDeque<Bitmap>> groups = new HashMap<>();
+
+    /**
+     * Every pooled bitmap, oldest first.
+     */
+    private final ArrayDeque<Bitmap> order = new ArrayDeque<>();
+
+    /**
+     * The same bitmaps, to turn away a bitmap put twice without scanning its group.
+     */
+    private final Set<Bitmap> pooled =
+            Collections.newSetFromMap(new IdentityHashMap<Bitmap, Boolean>());
+
+    private final int maxSize;
+
+    private int size;
+
+    private int hitCount;
+
+    private int missCount;
+
+    private int evictionCount;
+
+    /**
+     * @param maxSize maximum total size of the pooled bitmaps, in bytes
+     */
+    public TextDrawableBitmapPool(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return the process-wide pool, sized to a sixteenth of the maximum heap
+     */
+    public static TextDrawableBitmapPool getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    /**
+     * Take a pooled bitmap of exactly the given size and config, cleared to transparent.
+     *
+     * @return the bitmap, or null if the pool has none
+     */
+    public Bitmap get(int width, int height, @NonNull Bitmap.Config config) {
+        Bitmap bitmap;
+        synchronized (this) {
+            ArrayDeque<Bitmap> group = groups.get(new Key(width, height, config));
+            bitmap = group != null ? group.pollLast() : null;
+            if (bitmap == null) {
+                missCount++;
+                return null;
+            }
+            hitCount++;
+            pooled.remove(bitmap);
+            order.removeLastOccurrence(bitmap);
+            size -= sizeOf(bitmap);
+        }
+        bitmap.eraseColor(Color.TRANSPARENT);
+        return bitmap;
+    }
+
+    /**
+     * Hand a bitmap the caller no longer uses to the pool, to be erased and drawn over or
+     * recycled.
+     *
+     * @return false if the bitmap is immutable, recycled or larger than the pool and was left
+     * alone, for the caller to keep or drop
+     */
+    public boolean put(@NonNull Bitmap bitmap) {
+        if (!isPoolable(bitmap)) {
+            return false;
+        }
+        int bitmapSize = sizeOf(bitmap);
+        synchronized (this) {
+            if (!pooled.add(bitmap)) {
+                return true;
+            }
+            Key key = new Key(bitmap.getWidth(), bitmap.getHeight(), bitmap.getConfig());
+            ArrayDeque<Bitmap> group = groups.get(key);
+            if (group == null) {
+                group = new ArrayDeque<>();
+                groups.put(key, group);
+            }
+            group.addLast(bitmap);
+            order.addLast(bitmap);
+            size += bitmapSize;
+        }
+        trimToSize(maxSize);
+        return true;
+    }
+
+    /**
+     * @return whether {@link #put} would take the bitmap
+     */
+    private boolean isPoolable(Bitmap bitmap) {
+        return !bitmap.isRecycled() && bitmap.isMutable() && bitmap.getConfig() != null
+                && sizeOf(bitmap) <= maxSize;
+    }
+
+    public void evictAll() {
+        trimToSize(-1);
+    }
+
+    private void trimToSize(int maxSize) {
+        while (true) {
+            Bitmap evicted;
+            synchronized (this) {
+                if (size <= maxSize || order.isEmpty()) {
+                    return;
+                }
+                evicted = order.pollFirst();
+                pooled.remove(evicted);
+                Key key = new Key(evicted.getWidth(), evicted.getHeight(), evicted.getConfig());
+                ArrayDeque<Bitmap> group = groups.get(key);
+                // the oldest bitmap overall is also the oldest of its group
+                group.pollFirst();
+                if (group.isEmpty()) {
+                    groups.remove(key);
+                }
+                size -= sizeOf(evicted);
+                evictionCount++;
+            }
+            evicted.recycle();
+        }
+    }
+
+    private static int sizeOf(Bitmap bitmap) {
+        return bitmap.getRowBytes() * bitmap.getHeight();
+    }
+
+    /**
+     * @return the total size of the pooled bitmaps, in bytes
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    public int maxSize() {
+        return maxSize;
+    }
+
+    public synchronized int getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized int getMissCount() {
+        return missCount;
+    }
+
+    public synchronized int getEvictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        int accesses = hitCount + missCount;
+        int hitPercent = accesses != 0 ? (100 * hitCount / accesses) : 0;
+        return String.format("TextDrawableBitmapPool[size=%d,maxSize=%d,hits=%d,misses=%d,evictions=%d,hitRate=%d%%]",
+                size, maxSize, hitCount, missCount, evictionCount, hitPercent);
+    }
+
+    private static final class Key {
+
+        private final int width;
+
+        private final int height;
+
+        private final Bitmap.Config config;
+
+        Key(int width, int height, Bitmap.Config config) {
+            this.width = width;
+            this.height = height;
+            this.config = config;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key that = (Key) o;
+            return width == that.width && height == that.height && config == that.config;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = width;
+            result = 31 * result + height;
+            result = 31 * result + config.hashCode();
+            return result;
+        }
+    }
+
+    private static class InstanceHolder {
+        static final TextDrawableBitmapPool INSTANCE = new TextDrawableBitmapPool(
+                (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / DEFAULT_MEMORY_FRACTION));
+    }
+}
@@ -0,0 +1,197 @@
+package com.amulyakhare.textdrawable;
+
+import android.graphics.Bitmap;
+import android.support.annotation.NonNull;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded, least recently used cache of rendered {@link TextDrawable} bitmaps, keyed by
+ * {@link TextDrawableSpec}. Identical avatars are rendered once and the same bitmap is handed
+ * to every caller, so returned bitmaps must not be modified, recycled or put in a
+ * {@link TextDrawableBitmapPool}. Evicted bitmaps are not recycled either, callers may still be
+ * drawing them; they are left to the garbage collector.
+ * <p>
+ * Backed by a {@link TextDrawableDiskCache}, misses are loaded from disk before rendering, and
+ * rendered bitmaps are written to disk; {@link #get} then does disk I/O and should be called
+ * off the main thread, e.g. through a {@link TextDrawablePrefetcher}.
+ *
+ * @author alvinhkh
+ */
+public class TextDrawableCache {
+
+    private static final int DEFAULT_MEMORY_FRACTION = 8;
+
+    private final LinkedHashMap<TextDrawableSpec, Bitmap> map;
+
+    private final int maxSize;
+
+    private final TextDrawableDiskCache diskCache;
+
+    private int size;
+
+    private int hitCount;
+
+    private int missCount;
+
+    private int evictionCount;
+
+    /**
+     * @param maxSize maximum total size of the cached bitmaps, in bytes
+     */
+    public TextDrawableCache(int maxSize) {
+        this(maxSize, null);
+    }
+
+    /**
+     * @param maxSize   maximum total size of the cached bitmaps, in bytes
+     * @param diskCache second level cache that outlives the process, or null
+     */
+    public TextDrawableCache(int maxSize, TextDrawableDiskCache diskCache) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        this.maxSize = maxSize;
+        this.diskCache = diskCache;
+        this.map = new LinkedHashMap<>(0, 0.75f, true);
+    }
+
+    /**
+     * @return the process-wide cache, sized to an eighth of the maximum heap
+     */
+    public static TextDrawableCache getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    /**
+     * Return the cached bitmap for the builder's current values, rendering it on a miss.
+     */
+    public Bitmap get(@NonNull TextDrawable.Builder builder) {
+        return get(builder.buildSpec());
+    }
+
+    /**
+     * Return the cached bitmap for the spec, rendering it on a miss.
+     */
+    public Bitmap get(@NonNull TextDrawableSpec spec) {
+        Bitmap bitmap;
+        synchronized (this) {
+            bitmap = map.get(spec);
+            if (bitmap != null) {
+                hitCount++;
+            } else {
+                missCount++;
+            }
+        }
+        TextDrawableMetrics.Listener metrics = TextDrawableMetrics.listener;
+        if (metrics != null) {
+            metrics.onCacheLookup(bitmap != null);
+        }
+        if (bitmap != null) {
+            return bitmap;
+        }
+
+        // load or render outside the lock; if another thread raced us, keep its bitmap
+        Bitmap rendered = diskCache != null ? diskCache.get(spec) : null;
+        if (rendered == null) {
+            rendered = TextDrawable.fromSpec(spec).getBitmap();
+            if (diskCache != null) {
+                diskCache.put(spec, rendered);
+            }
+        }
+        synchronized (this) {
+            Bitmap previous = map.get(spec);
+            if (previous != null) {
+                return previous;
+            }
+            map.put(spec, rendered);
+            size += sizeOf(rendered);
+        }
+        trimToSize(maxSize);
+        return rendered;
+    }
+
+    /**
+     * Return the cached bitmap for the builder's current values, or null if none is cached.
+     */
+    public Bitmap peek(@NonNull TextDrawable.Builder builder) {
+        return peek(builder.buildSpec());
+    }
+
+    /**
+     * Return the cached bitmap for the spec, or null if none is cached.
+     */
+    public synchronized Bitmap peek(@NonNull TextDrawableSpec spec) {
+        return map.get(spec);
+    }
+
+    public Bitmap remove(@NonNull TextDrawable.Builder builder) {
+        return remove(builder.buildSpec());
+    }
+
+    public synchronized Bitmap remove(@NonNull TextDrawableSpec spec) {
+        Bitmap previous = map.remove(spec);
+        if (previous != null) {
+            size -= sizeOf(previous);
+        }
+        return previous;
+    }
+
+    public void evictAll() {
+        trimToSize(-1);
+    }
+
+    private void trimToSize(int maxSize) {
+        synchronized (this) {
+            Iterator<Map.Entry<TextDrawableSpec, Bitmap>> iterator = map.entrySet().iterator();
+            while (size > maxSize && iterator.hasNext()) {
+                Bitmap evicted = iterator.next().getValue();
+                iterator.remove();
+                size -= sizeOf(evicted);
+                evictionCount++;
+            }
+        }
+    }
+
+    private static int sizeOf(Bitmap bitmap) {
+        return bitmap.getRowBytes() * bitmap.getHeight();
+    }
+
+    /**
+     * @return the total size of the cached bitmaps, in bytes
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    public int maxSize() {
+        return maxSize;
+    }
+
+    public synchronized int getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized int getMissCount() {
+        return missCount;
+    }
+
+    public synchronized int getEvictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        int accesses = hitCount + missCount;
+        int hitPercent = accesses != 0 ? (100 * hitCount / accesses) : 0;
+        return String.format("TextDrawableCache[size=%d,maxSize=%d,hits=%d,misses=%d,evictions=%d,hitRate=%d%%]",
+                size, maxSize, hitCount, missCount, evictionCount, hitPercent);
+    }
+
+    private static class InstanceHolder {
+        static final TextDrawableCache INSTANCE = new TextDrawableCache(
+                (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / DEFAULT_MEMORY_FRACTION));
+    }
+}
@@ -0,0 +1,730 @@
+package com.amulyakhare.textdrawable;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.support.annotation.NonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.zip.CRC32;
+
+/**
+ * A bounded, least recently used cache of rendered {@link TextDrawable} bitmaps on disk, so
+ * avatars survive process restarts. Entries are keyed by {@link TextDrawableSpec#getFingerprint()};
+ * specs that are not {@link TextDrawableSpec#isPortable() portable} are never stored.
+ * <p>
+ * Bitmaps are stored as PNG in an append-only data file of records
+ * {@code [magic, key, length, crc32, payload]}; a removal appends a record without payload.
+ * A memory-mapped open addressing index maps keys to records and keeps their access order. The
+ * data file is the journal: if the index does not cover exactly the data file, e.g. after a
+ * crash, it is rebuilt by replaying the records, and a torn or corrupt tail is cut off. Once
+ * removed records take up more than half of the data file it is compacted. Records are forced
+ * to disk before the index header covers them; a stale index page costs at most a miss, since
+ * every record read is checked against its key and CRC. A grown or rebuilt index is written to
+ * a new file that is renamed over the old one, so a mapped file is never truncated.
+ * <p>
+ * A directory can be open in only one cache at a time, also across processes. Reads and writes
+ * do disk I/O and must not run on the main thread. I/O errors are treated as misses; a closed
+ * cache, or one that could not recover from an error, behaves as an empty one.
+ *
+ * @author alvinhkh
+ */
+public class TextDrawableDiskCache implements Closeable {
+
+    private static final String DATA_FILE = "avatars.data";
+
+    private static final String INDEX_FILE = "avatars.index";
+
+    private static final String LOCK_FILE = "avatars.lock";
+
+    private static final int RECORD_MAGIC = 0x54444431;
+
+    private static final int RECORD_HEADER_SIZE = 20;
+
+    private static final int INDEX_MAGIC = 0x54444958;
+
+    private static final int INDEX_VERSION = 1;
+
+    // magic, version, capacity, count, data length, live bytes, tick
+    private static final int INDEX_HEADER_SIZE = 48;
+
+    // key, record offset, payload length, unused, tick
+    private static final int SLOT_SIZE = 32;
+
+    private static final int MIN_CAPACITY = 256;
+
+    private static final long MIN_COMPACT_SIZE = 1 << 20;
+
+    private final File directory;
+
+    private final long maxSize;
+
+    private final RandomAccessFile lockFile;
+
+    // null once closed
+    private FileChannel data;
+
+    private RandomAccessFile dataFile;
+
+    private RandomAccessFile indexFile;
+
+    private MappedByteBuffer slots;
+
+    private int capacity;
+
+    private int count;
+
+    // length of the data file the index covers, -1 while the index is being rewritten
+    private long dataLength;
+
+    // bytes of the records the index points at
+    private long size;
+
+    private long tick;
+
+    private int hitCount;
+
+    private int missCount;
+
+    private int evictionCount;
+
+    /**
+     * Open the cache in the directory, creating it if needed.
+     *
+     * @param maxSize maximum total size of the stored records, in bytes
+     * @throws IOException if the directory is open in another cache, or cannot be read
+     */
+    public TextDrawableDiskCache(@NonNull File directory, long maxSize) throws IOException {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("could not create " + directory);
+        }
+        this.directory = directory;
+        this.maxSize = maxSize;
+        lockFile = new RandomAccessFile(new File(directory, LOCK_FILE), "rw");
+        synchronized (this) {
+            try {
+                // held until the cache is closed; released with the file
+                if (tryLock(lockFile.getChannel()) == null) {
+                    throw new IOException(directory + " is open in another cache");
+                }
+                dataFile = new RandomAccessFile(new File(directory, DATA_FILE), "rw");
+                data = dataFile.getChannel();
+                indexFile = new RandomAccessFile(new File(directory, INDEX_FILE), "rw");
+                if (!loadIndex()) {
+                    rebuildIndex();
+                }
+                trimToSize(maxSize);
+                commit();
+            } catch (IOException | RuntimeException e) {
+                closeFiles();
+                throw e;
+            }
+        }
+    }
+
+    private static FileLock tryLock(FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // held by another cache in this process
+            return null;
+        }
+    }
+
+    /**
+     * Return the stored bitmap for the builder's current values, or null.
+     */
+    public Bitmap get(@NonNull TextDrawable.Builder builder) {
+        return get(builder.buildSpec());
+    }
+
+    /**
+     * Return the stored bitmap for the spec, or null. The bitmap is immutable.
+     */
+    public Bitmap get(@NonNull TextDrawableSpec spec) {
+        if (!spec.isPortable()) {
+            return null;
+        }
+        byte[] payload;
+        synchronized (this) {
+            try {
+                payload = read(spec.getFingerprint());
+            } catch (IOException e) {
+                payload = null;
+            }
+            if (payload != null) {
+                hitCount++;
+            } else {
+                missCount++;
+            }
+        }
+        if (payload == null) {
+            return null;
+        }
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        // the config getBitmap() rendered it in, decided without building a drawable
+        options.inPreferredConfig = spec.isOpaque() ?
+                Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888;
+        return BitmapFactory.decodeByteArray(payload, 0, payload.length, options);
+    }
+
+    /**
+     * Store the bitmap rendered for the spec.
+     *
+     * @return whether it was stored
+     */
+    public boolean put(@NonNull TextDrawableSpec spec, @NonNull Bitmap bitmap) {
+        if (!spec.isPortable()) {
+            return false;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (!bitmap.compress(Bitmap.CompressFormat.PNG, 100, out)) {
+            return false;
+        }
+        byte[] payload = out.toByteArray();
+        if (payload.length == 0 || RECORD_HEADER_SIZE + payload.length > maxSize) {
+            return false;
+        }
+        synchronized (this) {
+            try {
+                append(spec.getFingerprint(), payload);
+                if (size > maxSize) {
+                    // trim an eighth more, so the access order is not sorted on every put
+                    trimToSize(maxSize - maxSize / 8);
+                }
+                commit();
+                if (dataLength > MIN_COMPACT_SIZE && dataLength > 2 * size) {
+                    compact();
+                }
+                return true;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+    }
+
+    public boolean remove(@NonNull TextDrawable.Builder builder) {
+        return remove(builder.buildSpec());
+    }
+
+    /**
+     * @return whether a bitmap was stored for the spec
+     */
+    public synchronized boolean remove(@NonNull TextDrawableSpec spec) {
+        if (!spec.isPortable()) {
+            return false;
+        }
+        long key = spec.getFingerprint();
+        try {
+            checkOpen();
+            if (keyAt(slotFor(key)) != key) {
+                return false;
+            }
+            append(key, null);
+            commit();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public synchronized void evictAll() {
+        try {
+            checkOpen();
+            trimToSize(-1);
+            commit();
+            compact();
+        } catch (IOException e) {
+            // leave whatever could not be removed
+        }
+    }
+
+    /**
+     * @return the total size of the stored records, in bytes
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    public long maxSize() {
+        return maxSize;
+    }
+
+    public synchronized int getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized int getMissCount() {
+        return missCount;
+    }
+
+    public synchronized int getEvictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (data == null) {
+            return;
+        }
+        try {
+            slots.force();
+        } finally {
+            closeFiles();
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        int accesses = hitCount + missCount;
+        int hitPercent = accesses != 0 ? (100 * hitCount / accesses) : 0;
+        return String.format("TextDrawableDiskCache[size=%d,maxSize=%d,entries=%d,hits=%d,misses=%d,evictions=%d,hitRate=%d%%]",
+                size, maxSize, count, hitCount, missCount, evictionCount, hitPercent);
+    }
+
+    private void checkOpen() throws IOException {
+        if (data == null) {
+            throw new IOException("cache is closed");
+        }
+    }
+
+    /**
+     * Close every file and release the lock; from then on the cache is empty.
+     */
+    private void closeFiles() {
+        data = null;
+        closeQuietly(indexFile);
+        closeQuietly(dataFile);
+        closeQuietly(lockFile);
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // nothing left to do with it
+            }
+        }
+    }
+
+    // ---- records
+
+    private byte[] read(long key) throws IOException {
+        checkOpen();
+        int slot = slotFor(key);
+        if (keyAt(slot) != key) {
+            return null;
+        }
+        long offset = slots.getLong(slotOffset(slot) + 8);
+        int length = slots.getInt(slotOffset(slot) + 16);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + length);
+        readFully(record, offset);
+        if (record.getInt(0) != RECORD_MAGIC || record.getLong(4) != key
+                || record.getInt(12) != length
+                || record.getInt(16) != crc(record.array(), RECORD_HEADER_SIZE, length)) {
+            // damaged on disk, forget it
+            append(key, null);
+            commit();
+            return null;
+        }
+        slots.putLong(slotOffset(slot) + 24, ++tick);
+        writeHeader();
+        return Arrays.copyOfRange(record.array(), RECORD_HEADER_SIZE, record.capacity());
+    }
+
+    /**
+     * Append a record for the key, or a removal record if the payload is null, and point the
+     * index at it. The index header is only updated by the following {@link #commit()}.
+     */
+    private void append(long key, byte[] payload) throws IOException {
+        checkOpen();
+        int length = payload != null ? payload.length : 0;
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + length);
+        record.putInt(RECORD_MAGIC);
+        record.putLong(key);
+        record.putInt(length);
+        record.putInt(crc(payload, 0, length));
+        if (payload != null) {
+            record.put(payload);
+        }
+        record.flip();
+        long offset = data.size();
+        writeFully(record, offset);
+        if (payload != null) {
+            putSlot(key, offset, length, ++tick);
+        } else {
+            removeSlot(key);
+        }
+        dataLength = offset + RECORD_HEADER_SIZE + length;
+    }
+
+    /**
+     * Force the appended records to disk, then let the index header cover them.
+     */
+    private void commit() throws IOException {
+        data.force(false);
+        writeHeader();
+    }
+
+    private void trimToSize(long maxSize) throws IOException {
+        if (size <= maxSize) {
+            return;
+        }
+        // oldest access first
+        long[][] entries = new long[count][];
+        int n = 0;
+        for (int i = 0; i < capacity; i++) {
+            long key = keyAt(i);
+            if (key != 0) {
+                if (n == entries.length) {
+                    throw indexCorrupt("index holds more entries than its count");
+                }
+                entries[n++] = new long[]{slots.getLong(slotOffset(i) + 24), key};
+            }
+        }
+        if (n != entries.length) {
+            throw indexCorrupt("index holds fewer entries than its count");
+        }
+        Arrays.sort(entries, new Comparator<long[]>() {
+            @Override
+            public int compare(long[] a, long[] b) {
+                return a[0] < b[0] ? -1 : (a[0] == b[0] ? 0 : 1);
+            }
+        });
+        for (int i = 0; i < entries.length && size > maxSize; i++) {
+            append(entries[i][1], null);
+            evictionCount++;
+        }
+    }
+
+    /**
+     * Replace an index found to be inconsistent by one replayed from the data file, or give up
+     * on the cache if that fails too.
+     *
+     * @return the exception for the caller to throw
+     */
+    private IOException indexCorrupt(String message) {
+        try {
+            rebuildIndex();
+        } catch (IOException e) {
+            closeFiles();
+        }
+        return new IOException(message);
+    }
+
+    /**
+     * Rewrite the data file with only the records the index points at.
+     */
+    private void compact() throws IOException {
+        File file = new File(directory, DATA_FILE);
+        File temp = new File(directory, DATA_FILE + ".tmp");
+        // a crash from here on leaves an index that does not match, so it is rebuilt
+        dataLength = -1;
+        writeHeader();
+        RandomAccessFile tempFile = null;
+        try {
+            tempFile = new RandomAccessFile(temp, "rw");
+            FileChannel out = tempFile.getChannel();
+            out.truncate(0);
+            long position = 0;
+            for (int i = 0; i < capacity; i++) {
+                if (keyAt(i) == 0) {
+                    continue;
+                }
+                int offset = slotOffset(i);
+                int length = RECORD_HEADER_SIZE + slots.getInt(offset + 16);
+                ByteBuffer record = ByteBuffer.allocate(length);
+                readFully(record, slots.getLong(offset + 8));
+                record.flip();
+                while (record.hasRemaining()) {
+                    out.write(record, position + record.position());
+                }
+                slots.putLong(offset + 8, position);
+                position += length;
+            }
+            out.force(true);
+            if (!temp.renameTo(file)) {
+                throw new IOException("could not replace " + file);
+            }
+        } catch (IOException e) {
+            closeQuietly(tempFile);
+            temp.delete();
+            // the index may point into the unfinished copy; replay the old data file, which is
+            // still open, or give up on the cache if even that fails
+            try {
+                rebuildIndex();
+            } catch (IOException rebuildError) {
+                closeFiles();
+            }
+            throw e;
+        }
+        // the new file was kept open across the rename, so nothing can fail from here on
+        closeQuietly(dataFile);
+        dataFile = tempFile;
+        data = tempFile.getChannel();
+        dataLength = data.size();
+        writeHeader();
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (data.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            data.write(buffer, position + buffer.position());
+        }
+    }
+
+    private static int crc(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        if (length > 0) {
+            crc.update(bytes, offset, length);
+        }
+        return (int) crc.getValue();
+    }
+
+    // ---- index
+
+    /**
+     * Map the existing index file, if it is intact and covers exactly the data file, and its
+     * count matches the occupied slots.
+     */
+    private boolean loadIndex() throws IOException {
+        FileChannel index = indexFile.getChannel();
+        long fileSize = index.size();
+        if (fileSize < INDEX_HEADER_SIZE + MIN_CAPACITY * SLOT_SIZE) {
+            return false;
+        }
+        MappedByteBuffer buffer = index.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+        int capacity = buffer.getInt(8);
+        if (buffer.getInt(0) != INDEX_MAGIC || buffer.getInt(4) != INDEX_VERSION
+                || capacity < MIN_CAPACITY || Integer.bitCount(capacity) != 1
+                || fileSize != INDEX_HEADER_SIZE + (long) capacity * SLOT_SIZE
+                || buffer.getLong(16) != data.size()) {
+            return false;
+        }
+        int count = buffer.getInt(12);
+        int occupied = 0;
+        for (int i = 0; i < capacity; i++) {
+            if (buffer.getLong(slotOffset(i)) != 0) {
+                occupied++;
+            }
+        }
+        if (count != occupied) {
+            return false;
+        }
+        this.slots = buffer;
+        this.capacity = capacity;
+        this.count = count;
+        this.dataLength = buffer.getLong(16);
+        this.size = buffer.getLong(24);
+        this.tick = buffer.getLong(32);
+        return true;
+    }
+
+    /**
+     * Replay the data file into a new index, cutting off a torn or corrupt tail.
+     */
+    private void rebuildIndex() throws IOException {
+        mapIndex(MIN_CAPACITY);
+        count = 0;
+        size = 0;
+        tick = 0;
+        long fileSize = data.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        while (position + RECORD_HEADER_SIZE <= fileSize) {
+            header.clear();
+            readFully(header, position);
+            long key = header.getLong(4);
+            int length = header.getInt(12);
+            if (header.getInt(0) != RECORD_MAGIC || key == 0 || length < 0
+                    || position + RECORD_HEADER_SIZE + length > fileSize) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(payload, position + RECORD_HEADER_SIZE);
+            if (header.getInt(16) != crc(payload.array(), 0, length)) {
+                break;
+            }
+            if (length > 0) {
+                putSlot(key, position, length, ++tick);
+            } else {
+                removeSlot(key);
+            }
+            position += RECORD_HEADER_SIZE + length;
+        }
+        if (position != fileSize) {
+            data.truncate(position);
+        }
+        dataLength = position;
+        commit();
+    }
+
+    /**
+     * Map an empty index of the given capacity. It is written to a new file that is renamed
+     * over the old one, so the old mapping is never truncated while it may still be read. Its
+     * header only matches the data file once the caller writes it.
+     */
+    private void mapIndex(int capacity) throws IOException {
+        File temp = new File(directory, INDEX_FILE + ".tmp");
+        RandomAccessFile file = new RandomAccessFile(temp, "rw");
+        MappedByteBuffer buffer;
+        try {
+            file.setLength(0);
+            buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+                    INDEX_HEADER_SIZE + (long) capacity * SLOT_SIZE);
+            buffer.putInt(0, INDEX_MAGIC);
+            buffer.putInt(4, INDEX_VERSION);
+            buffer.putInt(8, capacity);
+            if (!temp.renameTo(new File(directory, INDEX_FILE))) {
+                throw new IOException("could not replace " + INDEX_FILE);
+            }
+        } catch (IOException e) {
+            closeQuietly(file);
+            temp.delete();
+            throw e;
+        }
+        // the old mapping stays valid until it is collected
+        closeQuietly(indexFile);
+        indexFile = file;
+        slots = buffer;
+        this.capacity = capacity;
+    }
+
+    private void writeHeader() {
+        slots.putInt(12, count);
+        slots.putLong(16, dataLength);
+        slots.putLong(24, size);
+        slots.putLong(32, tick);
+    }
+
+    private static int slotOffset(int slot) {
+        return INDEX_HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private long keyAt(int slot) {
+        return slots.getLong(slotOffset(slot));
+    }
+
+    private int home(long key) {
+        return (int) (key ^ (key >>> 32)) & (capacity - 1);
+    }
+
+    /**
+     * @return the slot holding the key, or the empty slot where it would go
+     */
+    private int slotFor(long key) {
+        int mask = capacity - 1;
+        int slot = home(key);
+        long k;
+        while ((k = keyAt(slot)) != 0 && k != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void putSlot(long key, long offset, int length, long tick) throws IOException {
+        int slot = slotFor(key);
+        if (keyAt(slot) == key) {
+            size -= RECORD_HEADER_SIZE + slots.getInt(slotOffset(slot) + 16);
+        } else {
+            if ((count + 1) * 4 > capacity * 3) {
+                grow();
+                slot = slotFor(key);
+            }
+            count++;
+        }
+        int o = slotOffset(slot);
+        slots.putLong(o, key);
+        slots.putLong(o + 8, offset);
+        slots.putInt(o + 16, length);
+        slots.putLong(o + 24, tick);
+        size += RECORD_HEADER_SIZE + length;
+    }
+
+    private void removeSlot(long key) {
+        int slot = slotFor(key);
+        if (keyAt(slot) != key) {
+            return;
+        }
+        size -= RECORD_HEADER_SIZE + slots.getInt(slotOffset(slot) + 16);
+        count--;
+        // backward shift deletion keeps probe sequences intact without tombstones
+        int mask = capacity - 1;
+        int hole = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            long k = keyAt(next);
+            if (k == 0) {
+                break;
+            }
+            int home = home(k);
+            boolean movable = hole <= next ? (home <= hole || home > next) : (home <= hole && home > next);
+            if (movable) {
+                copySlot(next, hole);
+                hole = next;
+            }
+        }
+        int o = slotOffset(hole);
+        for (int i = 0; i < SLOT_SIZE; i += 8) {
+            slots.putLong(o + i, 0);
+        }
+    }
+
+    private void copySlot(int from, int to) {
+        int f = slotOffset(from);
+        int t = slotOffset(to);
+        for (int i = 0; i < SLOT_SIZE; i += 8) {
+            slots.putLong(t + i, slots.getLong(f + i));
+        }
+    }
+
+    private void grow() throws IOException {
+        long[] entries = new long[count * 4];
+        int n = 0;
+        for (int i = 0; i < capacity; i++) {
+            int o = slotOffset(i);
+            long key = slots.getLong(o);
+            if (key != 0) {
+                if (n == entries.length) {
+                    throw indexCorrupt("index holds more entries than its count");
+                }
+                entries[n++] = key;
+                entries[n++] = slots.getLong(o + 8);
+                entries[n++] = slots.getInt(o + 16);
+                entries[n++] = slots.getLong(o + 24);
+            }
+        }
+        // the new header only matches the data file once the caller writes it
+        mapIndex(capacity * 2);
+        for (int i = 0; i < n; i += 4) {
+            int o = slotOffset(slotFor(entries[i]));
+            slots.putLong(o, entries[i]);
+            slots.putLong(o + 8, entries[i + 1]);
+            slots.putInt(o + 16, (int) entries[i + 2]);
+            slots.putLong(o + 24, entries[i + 3]);
+        }
+    }
+}
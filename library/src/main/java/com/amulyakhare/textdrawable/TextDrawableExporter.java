@@ -0,0 +1,422 @@
+package com.amulyakhare.textdrawable;
+
+import android.graphics.Bitmap;
+import android.support.annotation.NonNull;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes avatars for many keys, e.g. a whole address book, to image files in a directory.
+ * Avatars are rendered and encoded in parallel on a fixed pool of background threads, with at
+ * most {@code maxInFlight} of them, and so their bitmaps, in memory at a time. Keys whose
+ * builders produce equal {@link TextDrawableSpec specs} are rendered once and the other files
+ * are copies, as long as the spec is among the most recently exported
+ * {@value #MAX_FINISHED_RENDERINGS} or so; older ones are forgotten so that memory stays bounded
+ * however many keys are exported.
+ *
+ * @author alvinhkh
+ */
+public class TextDrawableExporter {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final int MAX_FINISHED_RENDERINGS = 1024;
+
+    private final File directory;
+
+    private final Bitmap.CompressFormat format;
+
+    private final int quality;
+
+    private final String extension;
+
+    private final int maxInFlight;
+
+    private final ExecutorService executor;
+
+    /**
+     * Receives progress from the render threads. The total is not known up front, so progress
+     * is reported against the number of keys submitted so far.
+     */
+    public interface Listener {
+
+        /**
+         * Called after each key has been exported or has failed.
+         */
+        void onProgress(int completed, int failed, int submitted);
+    }
+
+    public TextDrawableExporter(@NonNull File directory, @NonNull Bitmap.CompressFormat format,
+                                int quality) {
+        this(directory, format, quality, Math.max(1, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * @param directory   directory the files are written to, named after their key
+     * @param format      image format, see {@link Bitmap#compress}
+     * @param quality     0 to 100, ignored by lossless formats
+     * @param threadCount number of background render threads
+     * @throws IllegalArgumentException if the format has no known file extension
+     */
+    public TextDrawableExporter(@NonNull File directory, @NonNull Bitmap.CompressFormat format,
+                                int quality, int threadCount) {
+        this(directory, format, quality, threadCount, 2 * threadCount);
+    }
+
+    /**
+     * @param maxInFlight maximum number of keys submitted but not yet written
+     */
+    public TextDrawableExporter(@NonNull File directory, @NonNull Bitmap.CompressFormat format,
+                                int quality, int threadCount, int maxInFlight) {
+        if (threadCount <= 0) {
+            throw new IllegalArgumentException("threadCount <= 0");
+        }
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight <= 0");
+        }
+        this.directory = directory;
+        this.format = format;
+        this.quality = quality;
+        this.extension = extensionOf(format);
+        this.maxInFlight = maxInFlight;
+        // a fork-join pool would need API 21; the work items are independent anyway
+        this.executor = Executors.newFixedThreadPool(threadCount,
+                new BackgroundThreadFactory("TextDrawableExporter"));
+    }
+
+    /**
+     * Export every entry and wait until all files are written. Each builder's current values
+     * are read when its entry is reached, so one builder may be reused for every entry. Blocks
+     * while {@code maxInFlight} keys are in progress, so the entries can be produced lazily.
+     * <p>
+     * If this throws, e.g. for an invalid key or when interrupted, the keys not yet started are
+     * skipped and the call returns only after the running ones have finished, so that nothing
+     * is written to the directory afterwards.
+     *
+     * @param entries  keys, used as file names without extension, and their builders. If a key
+     *                 appears more than once its file holds one of its avatars
+     * @param listener progress listener, or null
+     */
+    public Result export(@NonNull Iterable<? extends Map.Entry<String, TextDrawable.Builder>> entries,
+                         Listener listener) throws InterruptedException {
+        Batch batch = new Batch(listener, maxInFlight);
+        boolean drained = false;
+        try {
+            for (Map.Entry<String, TextDrawable.Builder> entry : entries) {
+                String key = entry.getKey();
+                checkKey(key);
+                TextDrawableSpec spec = entry.getValue().buildSpec().intern();
+                batch.inFlight.acquire();
+                batch.submitted.incrementAndGet();
+                try {
+                    executor.execute(new Task(batch, key, spec));
+                } catch (RuntimeException e) {
+                    batch.submitted.decrementAndGet();
+                    batch.inFlight.release();
+                    throw e;
+                }
+            }
+            // wait for the remaining tasks to give back their permits
+            batch.inFlight.acquire(maxInFlight);
+            drained = true;
+        } finally {
+            if (!drained) {
+                batch.cancelled = true;
+                batch.inFlight.acquireUninterruptibly(maxInFlight);
+            }
+            batch.inFlight.release(maxInFlight);
+        }
+        return new Result(batch);
+    }
+
+    /**
+     * Stop the render threads once the current export has finished.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static void checkKey(String key) {
+        if (key.isEmpty() || key.equals(".") || key.equals("..")
+                || key.indexOf('/') >= 0 || key.indexOf(File.separatorChar) >= 0) {
+            throw new IllegalArgumentException("key is not a valid file name: " + key);
+        }
+    }
+
+    private static String extensionOf(Bitmap.CompressFormat format) {
+        switch (format) {
+            case JPEG:
+                return ".jpg";
+            case WEBP:
+                return ".webp";
+            case PNG:
+                return ".png";
+            default:
+                throw new IllegalArgumentException("unsupported format " + format);
+        }
+    }
+
+    private void render(TextDrawableSpec spec, File file) throws IOException {
+        Bitmap bitmap = TextDrawable.fromSpec(spec).getBitmap();
+        try {
+            File temp = createTemp(file);
+            boolean written = false;
+            try {
+                OutputStream out =
+                        new BufferedOutputStream(new FileOutputStream(temp), BUFFER_SIZE);
+                try {
+                    if (!bitmap.compress(format, quality, out)) {
+                        throw new IOException("could not encode " + file.getName());
+                    }
+                } finally {
+                    out.close();
+                }
+                moveTo(temp, file);
+                written = true;
+            } finally {
+                if (!written) {
+                    temp.delete();
+                }
+            }
+        } finally {
+            TextDrawableBitmapPool.getInstance().put(bitmap);
+        }
+    }
+
+    private static void copy(File source, File file) throws IOException {
+        File temp = createTemp(file);
+        boolean written = false;
+        try {
+            InputStream in = new FileInputStream(source);
+            try {
+                OutputStream out = new FileOutputStream(temp);
+                try {
+                    byte[] buffer = new byte[BUFFER_SIZE];
+                    int count;
+                    while ((count = in.read(buffer)) != -1) {
+                        out.write(buffer, 0, count);
+                    }
+                } finally {
+                    out.close();
+                }
+            } finally {
+                in.close();
+            }
+            moveTo(temp, file);
+            written = true;
+        } finally {
+            if (!written) {
+                temp.delete();
+            }
+        }
+    }
+
+    /**
+     * @return a new, uniquely named file next to {@code file}, so that tasks writing the same
+     * key at once never share a temporary file
+     */
+    private static File createTemp(File file) throws IOException {
+        return File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+    }
+
+    private static void moveTo(File temp, File file) throws IOException {
+        if (!temp.renameTo(file)) {
+            throw new IOException("could not write " + file.getName());
+        }
+    }
+
+    /**
+     * Counts of a finished {@link #export}.
+     */
+    public static final class Result {
+
+        private final int exportedCount;
+
+        private final int renderedCount;
+
+        private final List<String> failedKeys;
+
+        Result(Batch batch) {
+            exportedCount = batch.completed.get();
+            renderedCount = batch.rendered.get();
+            synchronized (batch.failedKeys) {
+                failedKeys = Collections.unmodifiableList(new ArrayList<>(batch.failedKeys));
+            }
+        }
+
+        /**
+         * @return the number of files written
+         */
+        public int getExportedCount() {
+            return exportedCount;
+        }
+
+        /**
+         * @return the number of unique avatars rendered for them
+         */
+        public int getRenderedCount() {
+            return renderedCount;
+        }
+
+        public List<String> getFailedKeys() {
+            return failedKeys;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("TextDrawableExporter.Result[exported=%d,rendered=%d,failed=%d]",
+                    exportedCount, renderedCount, failedKeys.size());
+        }
+    }
+
+    /**
+     * State of one {@link #export} call.
+     */
+    private static final class Batch {
+
+        final Listener listener;
+
+        final Semaphore inFlight;
+
+        // the first rendering of each recently exported spec, in access order; guarded by itself
+        final Map<TextDrawableSpec, Rendering> renderings;
+
+        final AtomicInteger submitted = new AtomicInteger();
+
+        final AtomicInteger completed = new AtomicInteger();
+
+        final AtomicInteger rendered = new AtomicInteger();
+
+        final AtomicInteger failed = new AtomicInteger();
+
+        // guarded by itself
+        final List<String> failedKeys = new ArrayList<>();
+
+        // set when export() fails, so that the queued tasks skip their keys
+        volatile boolean cancelled;
+
+        Batch(Listener listener, int maxInFlight) {
+            this.listener = listener;
+            this.inFlight = new Semaphore(maxInFlight);
+            // at most maxInFlight renderings are unfinished; an evicted one is still awaited by
+            // the tasks that found it, later keys of its spec just render again
+            final int maxRenderings = maxInFlight + MAX_FINISHED_RENDERINGS;
+            this.renderings = new LinkedHashMap<TextDrawableSpec, Rendering>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<TextDrawableSpec, Rendering> eldest) {
+                    return size() > maxRenderings;
+                }
+            };
+        }
+
+        /**
+         * @return the rendering of an equal spec that is already known, or null if
+         * {@code rendering} has been registered as the first one
+         */
+        Rendering claim(TextDrawableSpec spec, Rendering rendering) {
+            synchronized (renderings) {
+                Rendering original = renderings.get(spec);
+                if (original == null) {
+                    renderings.put(spec, rendering);
+                }
+                return original;
+            }
+        }
+    }
+
+    /**
+     * The file the first key of a spec is rendered to, which later keys copy.
+     */
+    private static final class Rendering {
+
+        final File file;
+
+        final CountDownLatch done = new CountDownLatch(1);
+
+        volatile boolean succeeded;
+
+        Rendering(File file) {
+            this.file = file;
+        }
+    }
+
+    private class Task implements Runnable {
+
+        private final Batch batch;
+
+        private final String key;
+
+        private final TextDrawableSpec spec;
+
+        Task(Batch batch, String key, TextDrawableSpec spec) {
+            this.batch = batch;
+            this.key = key;
+            this.spec = spec;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (batch.cancelled) {
+                    return;
+                }
+                try {
+                    export();
+                    batch.completed.incrementAndGet();
+                } catch (IOException | RuntimeException | InterruptedException e) {
+                    if (e instanceof InterruptedException) {
+                        Thread.currentThread().interrupt();
+                    }
+                    synchronized (batch.failedKeys) {
+                        batch.failedKeys.add(key);
+                    }
+                    batch.failed.incrementAndGet();
+                }
+                if (batch.listener != null) {
+                    batch.listener.onProgress(batch.completed.get(), batch.failed.get(),
+                            batch.submitted.get());
+                }
+            } finally {
+                batch.inFlight.release();
+            }
+        }
+
+        private void export() throws IOException, InterruptedException {
+            File file = new File(directory, key + extension);
+            Rendering rendering = new Rendering(file);
+            Rendering original = batch.claim(spec, rendering);
+            if (original == null) {
+                try {
+                    render(spec, file);
+                    rendering.succeeded = true;
+                    batch.rendered.incrementAndGet();
+                } finally {
+                    rendering.done.countDown();
+                }
+            } else {
+                // the original's task has already started, so this never waits on a queued task
+                original.done.await();
+                if (!original.succeeded) {
+                    throw new IOException("rendering " + original.file.getName() + " failed");
+                }
+                copy(original.file, file);
+            }
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.amulyakhare.textdrawable;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Opt-in instrumentation of {@link TextDrawable} rendering. Nothing is measured until a
+ * {@link Listener} is installed with {@link #setListener(Listener)}; while none is installed the
+ * only cost is one volatile read per draw.
+ * <p>
+ * {@link Recorder} is a ready-made listener that aggregates counts, totals and approximate
+ * percentiles:
+ * <pre>
+ * TextDrawableMetrics.Recorder recorder = new TextDrawableMetrics.Recorder();
+ * TextDrawableMetrics.setListener(recorder);
+ * ...
+ * TextDrawableMetrics.Snapshot s = recorder.snapshot();
+ * Log.d(TAG, "p99 draw " + s.getDrawPercentileNanos(99) + "ns, hit ratio " + s.getCacheHitRatio());
+ * </pre>
+ *
+ * @author alvinhkh
+ */
+public final class TextDrawableMetrics {
+
+    static volatile Listener listener;
+
+    private TextDrawableMetrics() {
+    }
+
+    /**
+     * Install the global listener, or pass null to switch instrumentation off.
+     */
+    public static void setListener(Listener listener) {
+        TextDrawableMetrics.listener = listener;
+    }
+
+    public static Listener getListener() {
+        return listener;
+    }
+
+    /**
+     * Receives measurements from every thread that renders; implementations must be
+     * thread-safe and cheap.
+     */
+    public interface Listener {
+
+        /**
+         * A {@link TextDrawable#draw} call took the given time.
+         */
+        void onDraw(long nanos);
+
+        /**
+         * A {@link TextDrawable#getBitmap} call took the given time and allocated a bitmap of
+         * the given size, or 0 if it reused a pooled or caller's bitmap.
+         */
+        void onRender(long nanos, int bitmapBytes);
+
+        /**
+         * A {@link TextDrawableCache} lookup hit or missed.
+         */
+        void onCacheLookup(boolean hit);
+    }
+
+    /**
+     * Lock-free aggregating {@link Listener}. Durations are kept in a histogram with four
+     * buckets per power of two, so percentiles are accurate to within 25%.
+     */
+    public static class Recorder implements Listener {
+
+        private final Counter draws = new Counter();
+
+        private final Counter renders = new Counter();
+
+        private final AtomicLong bitmapBytes = new AtomicLong();
+
+        private final AtomicLong cacheHits = new AtomicLong();
+
+        private final AtomicLong cacheMisses = new AtomicLong();
+
+        @Override
+        public void onDraw(long nanos) {
+            draws.record(nanos);
+        }
+
+        @Override
+        public void onRender(long nanos, int bitmapBytes) {
+            renders.record(nanos);
+            this.bitmapBytes.addAndGet(bitmapBytes);
+        }
+
+        @Override
+        public void onCacheLookup(boolean hit) {
+            (hit ? cacheHits : cacheMisses).incrementAndGet();
+        }
+
+        public Snapshot snapshot() {
+            return new Snapshot(draws.snapshot(), renders.snapshot(), bitmapBytes.get(),
+                    cacheHits.get(), cacheMisses.get());
+        }
+
+        public void reset() {
+            draws.reset();
+            renders.reset();
+            bitmapBytes.set(0);
+            cacheHits.set(0);
+            cacheMisses.set(0);
+        }
+    }
+
+    /**
+     * Point-in-time copy of a {@link Recorder}'s values.
+     */
+    public static final class Snapshot {
+
+        private final long[] draws;
+
+        private final long[] renders;
+
+        private final long bitmapBytes;
+
+        private final long cacheHits;
+
+        private final long cacheMisses;
+
+        Snapshot(long[] draws, long[] renders, long bitmapBytes, long cacheHits, long cacheMisses) {
+            this.draws = draws;
+            this.renders = renders;
+            this.bitmapBytes = bitmapBytes;
+            this.cacheHits = cacheHits;
+            this.cacheMisses = cacheMisses;
+        }
+
+        public long getDrawCount() {
+            return draws[Counter.COUNT];
+        }
+
+        public long getDrawTimeNanos() {
+            return draws[Counter.TOTAL];
+        }
+
+        /**
+         * @param percentile between 0 and 100
+         */
+        public long getDrawPercentileNanos(double percentile) {
+            return Counter.percentile(draws, percentile);
+        }
+
+        public long getRenderCount() {
+            return renders[Counter.COUNT];
+        }
+
+        public long getRenderTimeNanos() {
+            return renders[Counter.TOTAL];
+        }
+
+        /**
+         * @param percentile between 0 and 100
+         */
+        public long getRenderPercentileNanos(double percentile) {
+            return Counter.percentile(renders, percentile);
+        }
+
+        public long getBitmapBytes() {
+            return bitmapBytes;
+        }
+
+        public long getCacheHitCount() {
+            return cacheHits;
+        }
+
+        public long getCacheMissCount() {
+            return cacheMisses;
+        }
+
+        /**
+         * @return hits divided by lookups, or 0 if there were none
+         */
+        public double getCacheHitRatio() {
+            long lookups = cacheHits + cacheMisses;
+            return lookups != 0 ? (double) cacheHits / lookups : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("TextDrawableMetrics[draws=%d,drawMs=%.2f,drawP50=%d,drawP99=%d,"
+                            + "renders=%d,renderMs=%.2f,bitmapBytes=%d,cacheHitRatio=%.2f]",
+                    getDrawCount(), getDrawTimeNanos() / 1e6, getDrawPercentileNanos(50),
+                    getDrawPercentileNanos(99), getRenderCount(), getRenderTimeNanos() / 1e6,
+                    bitmapBytes, getCacheHitRatio());
+        }
+    }
+
+    /**
+     * Count, total and log-linear histogram of durations.
+     */
+    private static final class Counter {
+
+        static final int COUNT = 0;
+
+        static final int TOTAL = 1;
+
+        private static final int BUCKETS = 248;
+
+        private final AtomicLong count = new AtomicLong();
+
+        private final AtomicLong total = new AtomicLong();
+
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+        void record(long nanos) {
+            if (nanos < 0) {
+                nanos = 0;
+            }
+            count.incrementAndGet();
+            total.addAndGet(nanos);
+            histogram.incrementAndGet(bucketFor(nanos));
+        }
+
+        void reset() {
+            count.set(0);
+            total.set(0);
+            for (int i = 0; i < BUCKETS; i++) {
+                histogram.set(i, 0);
+            }
+        }
+
+        /**
+         * @return count, total, then the histogram buckets
+         */
+        long[] snapshot() {
+            long[] values = new long[2 + BUCKETS];
+            values[COUNT] = count.get();
+            values[TOTAL] = total.get();
+            for (int i = 0; i < BUCKETS; i++) {
+                values[2 + i] = histogram.get(i);
+            }
+            return values;
+        }
+
+        static long percentile(long[] values, double percentile) {
+            long recorded = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                recorded += values[2 + i];
+            }
+            if (recorded == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(recorded * Math.min(100, Math.max(0, percentile)) / 100);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += values[2 + i];
+                if (seen >= Math.max(1, rank)) {
+                    return upperBound(i);
+                }
+            }
+            return upperBound(BUCKETS - 1);
+        }
+
+        /**
+         * Values below 4 get a bucket each; above that, four buckets per power of two.
+         */
+        static int bucketFor(long value) {
+            if (value < 4) {
+                return (int) value;
+            }
+            int exp = 63 - Long.numberOfLeadingZeros(value);
+            int sub = (int) (value >>> (exp - 2)) & 3;
+            return ((exp - 1) << 2) + sub;
+        }
+
+        static long upperBound(int bucket) {
+            if (bucket < 4) {
+                return bucket;
+            }
+            int exp = (bucket >> 2) + 1;
+            int sub = bucket & 3;
+            return ((4L + sub + 1) << (exp - 2)) - 1;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.amulyakhare.textdrawable;
+
+import android.support.annotation.NonNull;
+import android.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Renders {@link TextDrawable} bitmaps ahead of time on a small pool of background threads and
+ * stores them in a {@link TextDrawableCache}.
+ * <p>
+ * Visible items are rendered before anything else. Other requests are served newest first. At
+ * most {@code maxPending} visible and {@code maxPending} other requests are kept; when a fast
+ * fling queues more than that, the oldest requests are dropped since they have most likely
+ * scrolled out of view already. A request whose render fails is logged and skipped.
+ *
+ * @author alvinhkh
+ */
+public class TextDrawablePrefetcher {
+
+    private static final String TAG = "TextDrawablePrefetcher";
+
+    private static final int DEFAULT_MAX_PENDING = 64;
+
+    private final TextDrawableCache cache;
+
+    private final ExecutorService executor;
+
+    private final int maxPending;
+
+    private final int threadCount;
+
+    private final Object lock = new Object();
+
+    // pending requests, guarded by lock
+    private final ArrayDeque<TextDrawableSpec> visible = new ArrayDeque<>();
+
+    private final ArrayDeque<TextDrawableSpec> upcoming = new ArrayDeque<>();
+
+    private final HashMap<TextDrawableSpec, Boolean> pending = new HashMap<>();
+
+    private int activeWorkers;
+
+    private boolean shutdown;
+
+    public TextDrawablePrefetcher(@NonNull TextDrawableCache cache) {
+        this(cache, Math.max(1, Runtime.getRuntime().availableProcessors() - 1), DEFAULT_MAX_PENDING);
+    }
+
+    /**
+     * @param cache       cache the rendered bitmaps are stored in
+     * @param threadCount number of background render threads
+     * @param maxPending  maximum number of queued visible, and of queued other, requests
+     */
+    public TextDrawablePrefetcher(@NonNull TextDrawableCache cache, int threadCount, int maxPending) {
+        if (threadCount <= 0) {
+            throw new IllegalArgumentException("threadCount <= 0");
+        }
+        if (maxPending <= 0) {
+            throw new IllegalArgumentException("maxPending <= 0");
+        }
+        this.cache = cache;
+        this.threadCount = threadCount;
+        this.maxPending = maxPending;
+        this.executor = Executors.newFixedThreadPool(threadCount,
+                new BackgroundThreadFactory("TextDrawablePrefetcher"));
+    }
+
+    /**
+     * Queue the builders' current values for rendering, after any visible items. The builders
+     * are read immediately and may be reused by the caller afterwards.
+     */
+    public void prefetch(@NonNull List<TextDrawable.Builder> builders) {
+        enqueue(builders, false);
+    }
+
+    /**
+     * Queue the builders' current values for rendering ahead of every other request.
+     */
+    public void prefetchVisible(@NonNull List<TextDrawable.Builder> builders) {
+        enqueue(builders, true);
+    }
+
+    /**
+     * Drop a pending request for the builder's current values, if it has not started yet.
+     */
+    public void cancel(@NonNull TextDrawable.Builder builder) {
+        TextDrawableSpec spec = builder.buildSpec();
+        synchronized (lock) {
+            if (pending.remove(spec) != null) {
+                if (!visible.remove(spec)) {
+                    upcoming.remove(spec);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drop every pending request. Renders already in progress still complete.
+     */
+    public void cancelAll() {
+        synchronized (lock) {
+            visible.clear();
+            upcoming.clear();
+            pending.clear();
+        }
+    }
+
+    /**
+     * Cancel pending requests and stop the render threads.
+     */
+    public void shutdown() {
+        synchronized (lock) {
+            shutdown = true;
+        }
+        cancelAll();
+        executor.shutdown();
+    }
+
+    /**
+     * @return the number of requests waiting to be rendered
+     */
+    public int getPendingCount() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    private void enqueue(List<TextDrawable.Builder> builders, boolean isVisible) {
+        synchronized (lock) {
+            if (shutdown) {
+                return;
+            }
+            for (int i = 0; i < builders.size(); i++) {
+                TextDrawableSpec spec = builders.get(i).buildSpec();
+                if (cache.peek(spec) != null) {
+                    continue;
+                }
+                Boolean wasVisible = pending.get(spec);
+                if (wasVisible != null) {
+                    if (isVisible && !wasVisible) {
+                        // promote to the visible queue
+                        upcoming.remove(spec);
+                        visible.addLast(spec);
+                        pending.put(spec, true);
+                    }
+                    continue;
+                }
+                pending.put(spec, isVisible);
+                if (isVisible) {
+                    visible.addLast(spec);
+                } else {
+                    upcoming.addLast(spec);
+                }
+            }
+            // back-pressure: forget the oldest requests beyond the limit
+            trim(visible);
+            trim(upcoming);
+            int wanted = Math.min(threadCount, pending.size());
+            while (activeWorkers < wanted) {
+                activeWorkers++;
+                executor.execute(new Worker());
+            }
+        }
+    }
+
+    private void trim(ArrayDeque<TextDrawableSpec> queue) {
+        while (queue.size() > maxPending) {
+            pending.remove(queue.pollFirst());
+        }
+    }
+
+    private TextDrawableSpec next() {
+        synchronized (lock) {
+            TextDrawableSpec spec = visible.pollFirst();
+            if (spec == null) {
+                spec = upcoming.pollLast();
+            }
+            if (spec == null) {
+                activeWorkers--;
+            } else {
+                pending.remove(spec);
+            }
+            return spec;
+        }
+    }
+
+    private class Worker implements Runnable {
+
+        @Override
+        public void run() {
+            boolean drained = false;
+            try {
+                TextDrawableSpec spec;
+                while ((spec = next()) != null) {
+                    try {
+                        cache.get(spec);
+                    } catch (RuntimeException e) {
+                        // an uncaught exception would take the whole process down
+                        Log.w(TAG, "Could not render \"" + spec.getText() + "\"", e);
+                    }
+                }
+                drained = true;
+            } finally {
+                if (!drained) {
+                    // an error escaped; let a later request start a new worker
+                    synchronized (lock) {
+                        activeWorkers--;
+                    }
+                }
+            }
+        }
+    }
+}
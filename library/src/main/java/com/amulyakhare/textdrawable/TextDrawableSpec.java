@@ -0,0 +1,328 @@
+package com.amulyakhare.textdrawable;
+
+import android.graphics.Typeface;
+import android.graphics.drawable.Drawable;
+import android.os.BadParcelableException;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.support.annotation.NonNull;
+
+import com.amulyakhare.textdrawable.core.AvatarSpec;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+/**
+ * Immutable snapshot of the values of a {@link TextDrawable.Builder}. Two specs are equal when
+ * they would render identical drawables, which makes a spec usable as a cache key.
+ * <p>
+ * An {@link #intern() interned} spec also holds the resources used to draw it, so every
+ * {@link TextDrawable} built from equal values shares a single set of paints.
+ * <p>
+ * Specs are {@link Parcelable}, in their {@link #toByteArray() binary encoding}, so they can be
+ * passed to app widgets and other processes. Only {@link #isPortable() portable} specs can be
+ * read back: any other spec is written as a marker, so saving it succeeds, and reading it throws
+ * {@link BadParcelableException}.
+ *
+ * @author alvinhkh
+ */
+public final class TextDrawableSpec implements Parcelable {
+
+    private static final WeakHashMap<TextDrawableSpec, WeakReference<TextDrawableSpec>> pool =
+            new WeakHashMap<>();
+
+    // written before the encoding, or instead of it
+    private static final int PARCEL_PORTABLE = 1;
+
+    private static final int PARCEL_NOT_PORTABLE = 0;
+
+    public static final Creator<TextDrawableSpec> CREATOR = new Creator<TextDrawableSpec>() {
+        @Override
+        public TextDrawableSpec createFromParcel(Parcel source) {
+            if (source.readInt() != PARCEL_PORTABLE) {
+                throw new BadParcelableException(
+                        "spec was not portable when written: it has a drawable or an unnamed font");
+            }
+            return fromByteArray(source.createByteArray()).intern();
+        }
+
+        @Override
+        public TextDrawableSpec[] newArray(int size) {
+            return new TextDrawableSpec[size];
+        }
+    };
+
+    final int borderColor;
+
+    final int borderThickness;
+
+    final int color;
+
+    final Drawable drawable;
+
+    final Typeface font;
+
+    final String fontName;
+
+    final int fontSize;
+
+    final int fontStyle;
+
+    final int height;
+
+    final boolean isBold;
+
+    final float radius;
+
+    final boolean rasterizeDrawable;
+
+    final int shape;
+
+    final String text;
+
+    final int textColor;
+
+    final int verticalAlign;
+
+    final int width;
+
+    private final int hashCode;
+
+    // 0 until computed, never 0 once computed
+    private volatile long fingerprint;
+
+    // drawing resources shared by every drawable built from this spec
+    private TextDrawable.SharedResources sharedResources;
+
+    TextDrawableSpec(int borderColor, int borderThickness, int color, Drawable drawable,
+                     Typeface font, String fontName, int fontSize, int fontStyle, int height,
+                     boolean isBold, float radius,
+                     boolean rasterizeDrawable, int shape, String text, int textColor,
+                     int verticalAlign, int width) {
+        this.borderColor = borderColor;
+        this.borderThickness = borderThickness;
+        this.color = color;
+        this.drawable = drawable;
+        this.font = font;
+        this.fontName = fontName;
+        this.fontSize = fontSize;
+        this.fontStyle = fontStyle;
+        this.height = height;
+        this.isBold = isBold;
+        this.radius = radius;
+        // meaningless without a drawable; cleared so it cannot tell equal avatars apart
+        this.rasterizeDrawable = rasterizeDrawable && drawable != null;
+        this.shape = shape;
+        this.text = text;
+        this.textColor = textColor;
+        this.verticalAlign = verticalAlign;
+        this.width = width;
+        this.hashCode = computeHashCode();
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return the name the font was set by, or null if it was set as a {@code Typeface}
+     */
+    public String getFontName() {
+        return fontName;
+    }
+
+    /**
+     * @return whether the avatar covers every pixel of its bounds with an opaque colour, by the
+     * same rule as {@link AvatarSpec#isOpaque()}
+     */
+    boolean isOpaque() {
+        boolean rectangular = shape == TextDrawable.SHAPE_RECT
+                || (shape == TextDrawable.SHAPE_ROUND_RECT && radius <= 0);
+        return rectangular && (color >>> 24) == 0xff;
+    }
+
+    /**
+     * @return whether the spec can be reproduced from its values alone: it has no centre
+     * drawable and its font was set by name
+     */
+    public boolean isPortable() {
+        return drawable == null && fontName != null;
+    }
+
+    /**
+     * Return a 64 bit hash of the {@link #toByteArray() encoded} values that is the same on
+     * every device and in every process, for keys of persistent caches.
+     *
+     * @throws IllegalStateException if the spec is not {@link #isPortable() portable}
+     */
+    public long getFingerprint() {
+        long result = fingerprint;
+        if (result == 0) {
+            byte[] data = toByteArray();
+            result = SpecFingerprint.of(data, 0, data.length);
+            fingerprint = result;
+        }
+        return result;
+    }
+
+    /**
+     * Encode the values in a compact, versioned binary form, e.g. to ship the spec to another
+     * process or store it. Decode with {@link #fromByteArray} or read the values in place with a
+     * {@link TextDrawableSpecReader}.
+     *
+     * @throws IllegalStateException if the spec is not {@link #isPortable() portable}
+     */
+    public byte[] toByteArray() {
+        checkPortable();
+        return SpecCodec.encode(this);
+    }
+
+    /**
+     * Decode a spec encoded by {@link #toByteArray()}. The result is not interned.
+     *
+     * @throws IllegalArgumentException if the data is malformed or of an unknown version
+     */
+    public static TextDrawableSpec fromByteArray(@NonNull byte[] data) {
+        return new TextDrawableSpecReader().reset(data).toSpec();
+    }
+
+    private void checkPortable() {
+        if (!isPortable()) {
+            throw new IllegalStateException("spec has a drawable or an unnamed font");
+        }
+    }
+
+    /**
+     * Return the equivalent spec for other {@link com.amulyakhare.textdrawable.core.RenderBackend
+     * render backends}, e.g. to generate the same avatar on a server.
+     *
+     * @return the spec, or null if it cannot be reproduced elsewhere: it has a centre drawable
+     * or a font set as a {@code Typeface}
+     */
+    public AvatarSpec toAvatarSpec() {
+        if (!isPortable()) {
+            return null;
+        }
+        AvatarSpec.Builder builder = new AvatarSpec.Builder()
+                .setBorder(borderThickness)
+                .setBorderColor(borderColor)
+                .setColor(color)
+                .setFont(fontName, fontStyle)
+                .setFontSize(fontSize)
+                .setHeight(height)
+                .setRadius(radius)
+                .setShape(shape)
+                .setText(text)
+                .setTextColor(textColor)
+                .setVerticalAlign(verticalAlign)
+                .setWidth(width);
+        if (isBold) {
+            builder.setBold();
+        }
+        return builder.build();
+    }
+
+    /**
+     * Return the canonical instance equal to this spec, in the manner of {@link String#intern()}.
+     * Interned specs are only weakly held by the pool.
+     */
+    public TextDrawableSpec intern() {
+        synchronized (pool) {
+            WeakReference<TextDrawableSpec> ref = pool.get(this);
+            TextDrawableSpec interned = ref != null ? ref.get() : null;
+            if (interned == null) {
+                pool.put(this, new WeakReference<>(this));
+                interned = this;
+            }
+            return interned;
+        }
+    }
+
+    /**
+     * Return the resources shared by drawables built from this spec, creating its paints and,
+     * for a bitmap centre, centre bitmap on first use.
+     */
+    synchronized TextDrawable.SharedResources getSharedResources() {
+        if (sharedResources == null) {
+            sharedResources = new TextDrawable.SharedResources(this);
+        }
+        return sharedResources;
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    /**
+     * Write the encoding, or only a marker if the spec is not {@link #isPortable() portable}.
+     */
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        if (isPortable()) {
+            dest.writeInt(PARCEL_PORTABLE);
+            dest.writeByteArray(toByteArray());
+        } else {
+            dest.writeInt(PARCEL_NOT_PORTABLE);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TextDrawableSpec)) return false;
+        TextDrawableSpec that = (TextDrawableSpec) o;
+        return hashCode == that.hashCode
+                && borderColor == that.borderColor
+                && borderThickness == that.borderThickness
+                && color == that.color
+                && drawable == that.drawable
+                && fontSize == that.fontSize
+                && fontStyle == that.fontStyle
+                && height == that.height
+                && isBold == that.isBold
+                && Float.compare(radius, that.radius) == 0
+                && rasterizeDrawable == that.rasterizeDrawable
+                && shape == that.shape
+                && textColor == that.textColor
+                && verticalAlign == that.verticalAlign
+                && width == that.width
+                && text.equals(that.text)
+                && (font == null ? that.font == null : font.equals(that.font))
+                && (fontName == null ? that.fontName == null : fontName.equals(that.fontName));
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    private int computeHashCode() {
+        int result = text.hashCode();
+        result = 31 * result + color;
+        result = 31 * result + textColor;
+        result = 31 * result + borderColor;
+        result = 31 * result + borderThickness;
+        result = 31 * result + shape;
+        result = 31 * result + Float.floatToIntBits(radius);
+        result = 31 * result + (font != null ? font.hashCode() : 0);
+        result = 31 * result + (fontName != null ? fontName.hashCode() : 0);
+        result = 31 * result + fontSize;
+        result = 31 * result + fontStyle;
+        result = 31 * result + width;
+        result = 31 * result + height;
+        result = 31 * result + (isBold ? 1 : 0);
+        result = 31 * result + verticalAlign;
+        result = 31 * result + System.identityHashCode(drawable);
+        result = 31 * result + (rasterizeDrawable ? 1 : 0);
+        return result;
+    }
+}
@@ -0,0 +1,227 @@
+package com.amulyakhare.textdrawable;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Reads the values of a spec encoded by {@link TextDrawableSpec#toByteArray()} in place. A
+ * reader can be {@link #reset} to any number of encodings; it allocates nothing unless the text,
+ * the font name or a spec is asked for, so e.g. the colours and fingerprints of many received
+ * specs can be read without garbage.
+ * <p>
+ * Readers are not thread safe. The array must not be modified while it is being read.
+ *
+ * @author alvinhkh
+ */
+public final class TextDrawableSpecReader {
+
+    // scratch for SpecCodec.readVarint
+    private final int[] position = new int[1];
+
+    private byte[] data;
+
+    private int offset;
+
+    private int length;
+
+    private int flags;
+
+    private int color;
+
+    private int textColor;
+
+    private int borderColor;
+
+    private int shape;
+
+    private int verticalAlign;
+
+    private int borderThickness;
+
+    private int fontStyle;
+
+    private int fontSize;
+
+    private int width;
+
+    private int height;
+
+    private float radius;
+
+    private int textOffset;
+
+    private int textLength;
+
+    private int fontNameOffset;
+
+    private int fontNameLength;
+
+    /**
+     * Read the encoding that fills {@code data}.
+     *
+     * @throws IllegalArgumentException if it is malformed or of an unknown version
+     */
+    public TextDrawableSpecReader reset(@NonNull byte[] data) {
+        return reset(data, 0, data.length);
+    }
+
+    /**
+     * Read the encoding in {@code length} bytes of {@code data} from {@code offset}.
+     *
+     * @throws IllegalArgumentException if it is malformed or of an unknown version
+     */
+    public TextDrawableSpecReader reset(@NonNull byte[] data, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > data.length || offset + length < 0) {
+            throw new IllegalArgumentException("range out of bounds");
+        }
+        this.data = null;
+        int end = offset + length;
+        if (length < 2 || data[offset] != SpecCodec.VERSION) {
+            throw new IllegalArgumentException(length < 2 ? "truncated spec"
+                    : "unknown spec version " + data[offset]);
+        }
+        flags = data[offset + 1];
+        if ((flags & ~SpecCodec.KNOWN_FLAGS) != 0) {
+            throw new IllegalArgumentException("unknown spec flags " + flags);
+        }
+        int p = offset + 2;
+        checkAvailable(p, 12, end);
+        color = SpecCodec.readInt(data, p);
+        textColor = SpecCodec.readInt(data, p + 4);
+        borderColor = SpecCodec.readInt(data, p + 8);
+        position[0] = p + 12;
+        shape = SpecCodec.readVarint(data, position, end);
+        verticalAlign = SpecCodec.readVarint(data, position, end);
+        borderThickness = SpecCodec.readVarint(data, position, end);
+        fontStyle = SpecCodec.readVarint(data, position, end);
+        fontSize = SpecCodec.readVarint(data, position, end);
+        width = SpecCodec.readVarint(data, position, end);
+        height = SpecCodec.readVarint(data, position, end);
+        checkAvailable(position[0], 4, end);
+        radius = Float.intBitsToFloat(SpecCodec.readInt(data, position[0]));
+        position[0] += 4;
+        textLength = SpecCodec.readVarint(data, position, end);
+        textOffset = position[0];
+        checkAvailable(textOffset, textLength, end);
+        position[0] = textOffset + textLength;
+        fontNameLength = SpecCodec.readVarint(data, position, end);
+        fontNameOffset = position[0];
+        checkAvailable(fontNameOffset, fontNameLength, end);
+        if (fontNameOffset + fontNameLength != end) {
+            throw new IllegalArgumentException("trailing bytes after spec");
+        }
+        this.data = data;
+        this.offset = offset;
+        this.length = length;
+        return this;
+    }
+
+    private static void checkAvailable(int position, int count, int end) {
+        if (count < 0 || count > end - position) {
+            throw new IllegalArgumentException("truncated spec");
+        }
+    }
+
+    public int getColor() {
+        checkData();
+        return color;
+    }
+
+    public int getTextColor() {
+        checkData();
+        return textColor;
+    }
+
+    public int getBorderColor() {
+        checkData();
+        return borderColor;
+    }
+
+    public int getBorderThickness() {
+        checkData();
+        return borderThickness;
+    }
+
+    public int getShape() {
+        checkData();
+        return shape;
+    }
+
+    public float getRadius() {
+        checkData();
+        return radius;
+    }
+
+    public int getVerticalAlign() {
+        checkData();
+        return verticalAlign;
+    }
+
+    public int getFontStyle() {
+        checkData();
+        return fontStyle;
+    }
+
+    public int getFontSize() {
+        checkData();
+        return fontSize;
+    }
+
+    public int getWidth() {
+        checkData();
+        return width;
+    }
+
+    public int getHeight() {
+        checkData();
+        return height;
+    }
+
+    public boolean isBold() {
+        checkData();
+        return (flags & SpecCodec.FLAG_BOLD) != 0;
+    }
+
+    /**
+     * Decode the text. Allocates.
+     */
+    public String getText() {
+        checkData();
+        return SpecCodec.readString(data, textOffset, textLength);
+    }
+
+    /**
+     * Decode the font name. Allocates.
+     */
+    public String getFontName() {
+        checkData();
+        return SpecCodec.readString(data, fontNameOffset, fontNameLength);
+    }
+
+    /**
+     * @return the {@link TextDrawableSpec#getFingerprint() fingerprint} of the encoded spec,
+     * without decoding it
+     */
+    public long getFingerprint() {
+        checkData();
+        return SpecFingerprint.of(data, offset, length);
+    }
+
+    /**
+     * Decode the spec. The result is not interned.
+     *
+     * @throws IllegalArgumentException if a string is malformed
+     */
+    public TextDrawableSpec toSpec() {
+        checkData();
+        String fontName = getFontName();
+        return new TextDrawableSpec(borderColor, borderThickness, color, null,
+                TextDrawable.resolveFont(fontName, fontStyle), fontName, fontSize, fontStyle,
+                height, isBold(), radius, false, shape, getText(), textColor, verticalAlign, width);
+    }
+
+    private void checkData() {
+        if (data == null) {
+            throw new IllegalStateException("no spec has been read");
+        }
+    }
+}
@@ -1,8 +1,9 @@
 package com.amulyakhare.textdrawable.util;
 
+import android.content.res.AssetManager;
 import android.graphics.Typeface;
 
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
     Each call to Typeface.createFromAsset will load a new instance of the typeface into memory,
@@ -28,20 +29,64 @@ import java.util.HashMap;
 **/
 public class TypefaceHelper {
 
-    private static final HashMap<String, Typeface> cache = new HashMap<>();
+    // one map per Typeface style constant, so lookups need neither a lock nor a composite key
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final ConcurrentHashMap<String, Typeface>[] cache = new ConcurrentHashMap[] {
+            new ConcurrentHashMap<String, Typeface>(),  // Typeface.NORMAL
+            new ConcurrentHashMap<String, Typeface>(),  // Typeface.BOLD
+            new ConcurrentHashMap<String, Typeface>(),  // Typeface.ITALIC
+            new ConcurrentHashMap<String, Typeface>()   // Typeface.BOLD_ITALIC
+    };
 
+    private static final ConcurrentHashMap<String, Typeface> assetCache = new ConcurrentHashMap<>();
+
+    /**
+     * Return the system typeface with the given family name and style, or null if it cannot be
+     * created. A null name is the default family, as for {@link Typeface#create(String, int)}.
+     */
     public static Typeface get(String name, int style) {
-        synchronized (cache) {
-            if (!cache.containsKey(name)) {
-                try {
-                    Typeface t = Typeface.create(name, style);
-                    cache.put(name, t);
-                    return t;
-                } catch (RuntimeException e) {
-                    return null;
-                }
-            }
-            return cache.get(name);
+        if (style < Typeface.NORMAL || style > Typeface.BOLD_ITALIC) {
+            style = Typeface.NORMAL;
+        }
+        if (name == null) {
+            // ConcurrentHashMap takes no null keys; the platform caches these itself
+            return Typeface.defaultFromStyle(style);
+        }
+        ConcurrentHashMap<String, Typeface> styleCache = cache[style];
+        Typeface t = styleCache.get(name);
+        if (t != null) {
+            return t;
+        }
+        try {
+            t = Typeface.create(name, style);
+        } catch (RuntimeException e) {
+            return null;
+        }
+        if (t == null) {
+            return null;
+        }
+        Typeface previous = styleCache.putIfAbsent(name, t);
+        return previous != null ? previous : t;
+    }
+
+    /**
+     * Return the typeface loaded from the font file at the given asset path, or null if it
+     * cannot be loaded. Each file is only loaded once per process.
+     */
+    public static Typeface getFromAsset(AssetManager assets, String path) {
+        Typeface t = assetCache.get(path);
+        if (t != null) {
+            return t;
+        }
+        try {
+            t = Typeface.createFromAsset(assets, path);
+        } catch (RuntimeException e) {
+            return null;
+        }
+        if (t == null) {
+            return null;
         }
+        Typeface previous = assetCache.putIfAbsent(path, t);
+        return previous != null ? previous : t;
     }
 }
@@ -0,0 +1,183 @@
+package com.amulyakhare.textdrawable;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.graphics.Typeface;
+
+import com.amulyakhare.textdrawable.util.ColorGenerator;
+import com.amulyakhare.textdrawable.util.TypefaceHelper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Host-side timing of the Canvas paths, the same operations as the sample's BenchmarkActivity.
+ * Robolectric's Canvas does not rasterize, so this measures the library's own work around the
+ * draw calls (layout, paints, allocation), not the cost of drawing on a device. Skipped unless
+ * run with {@code -Pbenchmark}:
+ * <pre>
+ * ./gradlew :library:testDebugUnitTest -Pbenchmark --tests '*CanvasPathBenchmark'
+ * </pre>
+ * Results are printed and written to {@code build/reports/canvas-benchmark.txt}.
+ *
+ * @author alvinhkh
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class CanvasPathBenchmark {
+
+    private static final int WARMUP = 20000;
+
+    private static final int ITERATIONS = 20000;
+
+    private static final int ROUNDS = 7;
+
+    private static final int SIZE = 120;
+
+    private final StringBuilder report = new StringBuilder();
+
+    // keeps results reachable so the JIT cannot drop the work
+    private Object sink;
+
+    @Before
+    public void setUp() {
+        assumeTrue(Boolean.getBoolean("textdrawable.benchmark"));
+    }
+
+    @Test
+    public void run() throws IOException {
+        final TextDrawable.Builder builder = new TextDrawable.Builder()
+                .setShape(TextDrawable.SHAPE_ROUND)
+                .setWidth(SIZE)
+                .setHeight(SIZE);
+        final Canvas canvas = new NullCanvas();
+        final TextDrawable drawable = builder.setText("AB").build();
+        drawable.setBounds(0, 0, SIZE, SIZE);
+
+        report.append(String.format("%-30s %10s %10s%n", "operation", "median", "min"));
+        measure("Builder()", new Op() {
+            @Override
+            public Object run(int i) {
+                return new TextDrawable.Builder();
+            }
+        });
+        measure("Builder().setFont(..)", new Op() {
+            @Override
+            public Object run(int i) {
+                return new TextDrawable.Builder().setFont(Typeface.DEFAULT);
+            }
+        });
+        measure("Builder.build()", new Op() {
+            @Override
+            public Object run(int i) {
+                return builder.setColor(ColorGenerator.MATERIAL.getColor(i & 63)).build();
+            }
+        });
+        measure("TextDrawable.draw()", new Op() {
+            @Override
+            public Object run(int i) {
+                drawable.draw(canvas);
+                return null;
+            }
+        });
+        measure("TextDrawable.renderTo()", new Op() {
+            @Override
+            public Object run(int i) {
+                drawable.renderTo(canvas, SIZE, SIZE);
+                return null;
+            }
+        });
+        measure("TextDrawable.getBitmap()", new Op() {
+            @Override
+            public Object run(int i) {
+                return drawable.getBitmap();
+            }
+        });
+        final Bitmap[] reuse = new Bitmap[1];
+        measure("TextDrawable.getBitmap(reuse)", new Op() {
+            @Override
+            public Object run(int i) {
+                return reuse[0] = drawable.getBitmap(reuse[0]);
+            }
+        });
+        measure("TypefaceHelper.get()", new Op() {
+            @Override
+            public Object run(int i) {
+                return TypefaceHelper.get("sans-serif-light", Typeface.NORMAL);
+            }
+        });
+
+        System.out.print(report);
+        File file = new File("build/reports/canvas-benchmark.txt");
+        file.getParentFile().mkdirs();
+        Writer writer = new FileWriter(file);
+        try {
+            writer.write(report.toString());
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void measure(String name, Op op) {
+        for (int i = 0; i < WARMUP; i++) {
+            sink = op.run(i);
+        }
+        long[] nanos = new long[ROUNDS];
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                sink = op.run(i);
+            }
+            nanos[round] = (System.nanoTime() - start) / ITERATIONS;
+        }
+        Arrays.sort(nanos);
+        report.append(String.format("%-30s %7d ns %7d ns%n", name, nanos[ROUNDS / 2], nanos[0]));
+    }
+
+    private interface Op {
+        Object run(int i);
+    }
+
+    /**
+     * Drops the draw calls the library makes, so that only the library's own work is timed.
+     */
+    private static final class NullCanvas extends Canvas {
+
+        NullCanvas() {
+            super(Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ARGB_8888));
+        }
+
+        @Override
+        public void drawRect(RectF rect, Paint paint) {
+        }
+
+        @Override
+        public void drawRoundRect(RectF rect, float rx, float ry, Paint paint) {
+        }
+
+        @Override
+        public void drawOval(RectF oval, Paint paint) {
+        }
+
+        @Override
+        public void drawText(String text, float x, float y, Paint paint) {
+        }
+
+        @Override
+        public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.amulyakhare.textdrawable;
+
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Each (text, typeface, size, bold) combination is measured once, until it is evicted. The
+ * cache is process-wide, so every test uses texts of its own.
+ *
+ * @author alvinhkh
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class GlyphMetricsCacheTest {
+
+    @Test
+    public void sameKeyIsMeasuredOnce() {
+        CountingPaint paint = paint(Typeface.create("serif", Typeface.NORMAL), 20, false);
+        GlyphMetricsCache.Metrics metrics = GlyphMetricsCache.get(paint, "same-AK");
+        assertSame(metrics, GlyphMetricsCache.get(paint, "same-AK"));
+        assertSame(metrics, GlyphMetricsCache.get(
+                paint(Typeface.create("serif", Typeface.NORMAL), 20, false), "same-AK"));
+        assertEquals(1, paint.measureCount);
+    }
+
+    @Test
+    public void typefaceSizeAndBoldAreEachPartOfTheKey() {
+        // checked on the key itself: the test Paint does not keep the fake bold flag
+        Typeface serif = Typeface.create("serif", Typeface.NORMAL);
+        GlyphMetricsCache.Key key = new GlyphMetricsCache.Key("AK", serif, 20, false);
+        assertEquals(key, new GlyphMetricsCache.Key("AK", serif, 20, false));
+        assertEquals(key.hashCode(), new GlyphMetricsCache.Key("AK", serif, 20, false).hashCode());
+        assertNotEquals(key, new GlyphMetricsCache.Key("AK", null, 20, false));
+        assertNotEquals(key, new GlyphMetricsCache.Key("AK", serif, 21, false));
+        assertNotEquals(key, new GlyphMetricsCache.Key("AK", serif, 20, true));
+        assertNotEquals(key, new GlyphMetricsCache.Key("AJ", serif, 20, false));
+    }
+
+    @Test
+    public void otherSizeIsMeasuredSeparately() {
+        CountingPaint small = paint(Typeface.create("serif", Typeface.NORMAL), 20, false);
+        CountingPaint large = paint(Typeface.create("serif", Typeface.NORMAL), 21, false);
+        GlyphMetricsCache.Metrics metrics = GlyphMetricsCache.get(small, "size-AK");
+        assertNotSame(metrics, GlyphMetricsCache.get(large, "size-AK"));
+        assertEquals(1, large.measureCount);
+        // the second entry did not replace the first
+        assertSame(metrics, GlyphMetricsCache.get(small, "size-AK"));
+        assertEquals(1, small.measureCount);
+    }
+
+    @Test
+    public void leastRecentlyUsedIsEvictedAtCapacity() {
+        CountingPaint paint = paint(Typeface.create("serif", Typeface.NORMAL), 20, false);
+        GlyphMetricsCache.Metrics metrics = GlyphMetricsCache.get(paint, "lru-0");
+        // fill the cache up to its capacity: the first entry is still there
+        for (int i = 1; i < GlyphMetricsCache.MAX_ENTRIES; i++) {
+            GlyphMetricsCache.get(paint, "lru-" + i);
+        }
+        assertSame(metrics, GlyphMetricsCache.get(paint, "lru-0"));
+        assertEquals(GlyphMetricsCache.MAX_ENTRIES, paint.measureCount);
+
+        // lru-1 is now the eldest, and one more entry pushes it out
+        GlyphMetricsCache.get(paint, "lru-" + GlyphMetricsCache.MAX_ENTRIES);
+        assertSame(metrics, GlyphMetricsCache.get(paint, "lru-0"));
+        GlyphMetricsCache.get(paint, "lru-1");
+        assertEquals(GlyphMetricsCache.MAX_ENTRIES + 2, paint.measureCount);
+    }
+
+    private static CountingPaint paint(Typeface typeface, float textSize, boolean bold) {
+        CountingPaint paint = new CountingPaint();
+        paint.setTypeface(typeface);
+        paint.setTextSize(textSize);
+        paint.setFakeBoldText(bold);
+        return paint;
+    }
+
+    private static final class CountingPaint extends Paint {
+
+        int measureCount;
+
+        @Override
+        public void getTextBounds(String text, int start, int end, Rect bounds) {
+            measureCount++;
+            super.getTextBounds(text, start, end, bounds);
+        }
+    }
+}
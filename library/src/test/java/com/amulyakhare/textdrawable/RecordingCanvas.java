@@ -0,0 +1,86 @@
+package com.amulyakhare.textdrawable;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+/**
+ * Counts text and bitmap draw calls, whichever overload is used, and records the alpha and
+ * colour filter of the last text and bitmap paints.
+ *
+ * @author alvinhkh
+ */
+class RecordingCanvas extends Canvas {
+
+    int textCalls;
+
+    int bitmapCalls;
+
+    int lastTextAlpha;
+
+    ColorFilter lastTextColorFilter;
+
+    int lastBitmapAlpha;
+
+    ColorFilter lastBitmapColorFilter;
+
+    RecordingCanvas() {
+        super(Bitmap.createBitmap(96, 96, Bitmap.Config.ARGB_8888));
+    }
+
+    private void onText(Paint paint) {
+        textCalls++;
+        lastTextAlpha = paint.getAlpha();
+        lastTextColorFilter = paint.getColorFilter();
+    }
+
+    private void onBitmap(Paint paint) {
+        bitmapCalls++;
+        lastBitmapAlpha = paint != null ? paint.getAlpha() : 255;
+        lastBitmapColorFilter = paint != null ? paint.getColorFilter() : null;
+    }
+
+    @Override
+    public void drawText(String text, float x, float y, Paint paint) {
+        onText(paint);
+    }
+
+    @Override
+    public void drawText(String text, int start, int end, float x, float y, Paint paint) {
+        onText(paint);
+    }
+
+    @Override
+    public void drawText(char[] text, int index, int count, float x, float y, Paint paint) {
+        onText(paint);
+    }
+
+    @Override
+    public void drawText(CharSequence text, int start, int end, float x, float y, Paint paint) {
+        onText(paint);
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+        onBitmap(paint);
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Rect src, Rect dst, Paint paint) {
+        onBitmap(paint);
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Rect src, RectF dst, Paint paint) {
+        onBitmap(paint);
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Matrix matrix, Paint paint) {
+        onBitmap(paint);
+    }
+}
@@ -0,0 +1,170 @@
+package com.amulyakhare.textdrawable;
+
+import android.graphics.Typeface;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * @author alvinhkh
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class SpecCodecTest {
+
+    private static final String[] TEXTS = {
+            "", "A", "AK", "\u00e9", "\u4e2d\u6587", "\ud83d\ude00", "a\u0000b",
+            "\u07ff\u0800\uffff"
+    };
+
+    @Test
+    public void randomSpecsRoundTrip() {
+        Random random = new Random(42);
+        TextDrawableSpecReader reader = new TextDrawableSpecReader();
+        for (int i = 0; i < 500; i++) {
+            TextDrawable.Builder builder = new TextDrawable.Builder()
+                    .setText(TEXTS[random.nextInt(TEXTS.length)])
+                    .setColor(random.nextInt())
+                    .setTextColor(random.nextInt())
+                    .setBorderColor(random.nextInt())
+                    .setBorder(1 + random.nextInt(Integer.MAX_VALUE - 1))
+                    .setShape(random.nextInt(3))
+                    .setRadius(1 + random.nextInt(1000))
+                    .setVerticalAlign(random.nextInt(3))
+                    .setFont(random.nextBoolean() ? "sans-serif" : "serif\u0000\u00e9",
+                            random.nextInt(4))
+                    .setFontSize(1 + random.nextInt(500))
+                    .setWidth(1 + random.nextInt(Integer.MAX_VALUE - 1))
+                    .setHeight(1 + random.nextInt(4096));
+            if (random.nextBoolean()) {
+                builder.setBold();
+            }
+            TextDrawableSpec spec = builder.buildSpec();
+            byte[] data = spec.toByteArray();
+            assertEquals(spec, TextDrawableSpec.fromByteArray(data));
+            assertEquals(spec.getFingerprint(), reader.reset(data).getFingerprint());
+            assertEquals(spec.getText(), reader.getText());
+        }
+    }
+
+    @Test
+    public void stringsAreModifiedUtf8() throws IOException {
+        for (String text : TEXTS) {
+            byte[] data = specWithText(text).toByteArray();
+            byte[] expected = writeUtf(text);
+            // the text is the last string but one; find it from the end, before the font name
+            String fontName = "sans-serif";
+            int end = data.length - fontName.length() - 1;
+            assertArrayEquals(text, expected, Arrays.copyOfRange(data, end - expected.length, end));
+        }
+        byte[] nul = writeUtf("\u0000");
+        assertArrayEquals(new byte[]{(byte) 0xc0, (byte) 0x80}, nul);
+        assertEquals("\u0000", SpecCodec.readString(nul, 0, nul.length));
+    }
+
+    @Test
+    public void truncatedDataIsRejected() {
+        byte[] data = specWithText("\u4e2d\u6587 AK").toByteArray();
+        for (int length = 0; length < data.length; length++) {
+            assertRejected(Arrays.copyOf(data, length));
+        }
+    }
+
+    @Test
+    public void trailingBytesAreRejected() {
+        byte[] data = specWithText("AK").toByteArray();
+        assertRejected(Arrays.copyOf(data, data.length + 1));
+    }
+
+    @Test
+    public void unknownVersionIsRejected() {
+        byte[] data = specWithText("AK").toByteArray();
+        data[0] = SpecCodec.VERSION + 1;
+        assertRejected(data);
+    }
+
+    @Test
+    public void unknownFlagsAreRejected() {
+        byte[] data = specWithText("AK").toByteArray();
+        for (int flag = 2; flag <= 0x80; flag <<= 1) {
+            byte[] flagged = data.clone();
+            flagged[1] |= flag;
+            assertRejected(flagged);
+        }
+    }
+
+    @Test
+    public void rasterizeFlagDoesNotSplitPortableSpecs() {
+        // only meaningful with a centre drawable, which portable specs never have
+        TextDrawableSpec plain = specWithText("AK");
+        TextDrawableSpec rasterized = new TextDrawable.Builder()
+                .setText("AK")
+                .setFont("sans-serif", Typeface.NORMAL)
+                .setRasterizeDrawable()
+                .buildSpec();
+        assertEquals(plain, rasterized);
+        assertArrayEquals(plain.toByteArray(), rasterized.toByteArray());
+        assertEquals(plain.getFingerprint(), rasterized.getFingerprint());
+    }
+
+    @Test
+    public void zeroBytesAndOverlongCharsAreRejected() {
+        assertMalformed(0);
+        // 'A' in two and three bytes
+        assertMalformed(0xc1, 0x81);
+        assertMalformed(0xe0, 0x81, 0x81);
+        // NUL in three bytes
+        assertMalformed(0xe0, 0x80, 0x80);
+        // bad continuation, and a char cut short
+        assertMalformed(0xc3, 0x29);
+        assertMalformed(0xe4, 0xb8);
+        assertMalformed(0xf0, 0x9f, 0x98, 0x80);
+    }
+
+    private static TextDrawableSpec specWithText(String text) {
+        return new TextDrawable.Builder()
+                .setText(text)
+                .setFont("sans-serif", Typeface.NORMAL)
+                .buildSpec();
+    }
+
+    private static byte[] writeUtf(String text) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new DataOutputStream(bytes).writeUTF(text);
+        byte[] data = bytes.toByteArray();
+        // drop writeUTF's two byte length
+        return Arrays.copyOfRange(data, 2, data.length);
+    }
+
+    private static void assertRejected(byte[] data) {
+        try {
+            TextDrawableSpec.fromByteArray(data);
+            fail(data.length + " bytes");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    private static void assertMalformed(int... bytes) {
+        byte[] data = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            data[i] = (byte) bytes[i];
+        }
+        try {
+            SpecCodec.readString(data, 0, data.length);
+            fail(Arrays.toString(bytes));
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
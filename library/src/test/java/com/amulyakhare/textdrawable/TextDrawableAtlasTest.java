@@ -0,0 +1,141 @@
+package com.amulyakhare.textdrawable;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.ColorFilter;
+import android.graphics.PixelFormat;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffColorFilter;
+import android.graphics.drawable.Drawable;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Drawables handed out by a {@link TextDrawableAtlas} keep showing their avatar, with the same
+ * alpha and colour filter, after it has been evicted.
+ *
+ * @author alvinhkh
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class TextDrawableAtlasTest {
+
+    private static final int SIZE = 48;
+
+    @Test
+    public void drawsFromItsPage() {
+        TextDrawableAtlas atlas = new TextDrawableAtlas(SIZE, SIZE);
+        RecordingCanvas canvas = draw(atlas.add(builder("AK")));
+        assertEquals(1, canvas.bitmapCalls);
+        assertEquals(0, canvas.textCalls);
+    }
+
+    @Test
+    public void drawsItselfOnceEvicted() {
+        TextDrawableAtlas atlas = new TextDrawableAtlas(SIZE, SIZE);
+        Drawable drawable = atlas.add(builder("AK"));
+        atlas.evict(builder("AK"));
+        RecordingCanvas canvas = draw(drawable);
+        assertEquals(1, canvas.bitmapCalls);
+        assertEquals(0, canvas.textCalls);
+    }
+
+    @Test
+    public void alphaAndColorFilterApplyToTheWholeAvatarBeforeAndAfterEviction() {
+        TextDrawableAtlas atlas = new TextDrawableAtlas(SIZE, SIZE);
+        Drawable drawable = atlas.add(builder("AK").setBorder(4));
+        ColorFilter filter = new PorterDuffColorFilter(Color.RED, PorterDuff.Mode.SRC_ATOP);
+        drawable.setAlpha(128);
+        drawable.setColorFilter(filter);
+        RecordingCanvas attached = draw(drawable);
+
+        atlas.evict(builder("AK").setBorder(4));
+        RecordingCanvas detached = draw(drawable);
+
+        // one blit of the whole avatar through the same paint, not a re-render that would
+        // apply them to the text alone
+        assertEquals(attached.bitmapCalls, detached.bitmapCalls);
+        assertEquals(attached.textCalls, detached.textCalls);
+        assertEquals(128, detached.lastBitmapAlpha);
+        assertEquals(attached.lastBitmapAlpha, detached.lastBitmapAlpha);
+        assertSame(filter, detached.lastBitmapColorFilter);
+        assertSame(attached.lastBitmapColorFilter, detached.lastBitmapColorFilter);
+
+        drawable.setAlpha(64);
+        assertEquals(64, draw(drawable).lastBitmapAlpha);
+    }
+
+    @Test
+    public void drawsItselfWhenItsCellIsReused() {
+        // a single cell, so every new avatar evicts the previous one
+        TextDrawableAtlas atlas = new TextDrawableAtlas(SIZE, SIZE, SIZE, 1);
+        Drawable first = atlas.add(builder("AK"));
+        Drawable second = atlas.add(builder("BC"));
+        assertEquals(1, atlas.size());
+        assertEquals(1, draw(first).bitmapCalls);
+        assertEquals(1, draw(second).bitmapCalls);
+    }
+
+    @Test
+    public void drawsItselfAfterEvictAll() {
+        TextDrawableAtlas atlas = new TextDrawableAtlas(SIZE, SIZE);
+        Drawable drawable = atlas.add(builder("AK"));
+        atlas.evictAll();
+        assertEquals(0, atlas.getPageCount());
+        assertEquals(1, draw(drawable).bitmapCalls);
+    }
+
+    @Test
+    public void failedRenderFreesItsCell() {
+        // a single cell, which a failed render must give back
+        TextDrawableAtlas atlas = new TextDrawableAtlas(SIZE, SIZE, SIZE, 1);
+        try {
+            atlas.add(builder("AK").setDrawable(new FailingDrawable()));
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        assertEquals(0, atlas.size());
+        atlas.add(builder("BC"));
+        assertEquals(1, atlas.size());
+        assertEquals(1, atlas.getPageCount());
+    }
+
+    private static TextDrawable.Builder builder(String text) {
+        return new TextDrawable.Builder().setText(text).setWidth(SIZE).setHeight(SIZE);
+    }
+
+    private static RecordingCanvas draw(Drawable drawable) {
+        drawable.setBounds(0, 0, SIZE, SIZE);
+        RecordingCanvas canvas = new RecordingCanvas();
+        drawable.draw(canvas);
+        return canvas;
+    }
+
+    private static final class FailingDrawable extends Drawable {
+
+        @Override
+        public void draw(Canvas canvas) {
+            throw new IllegalStateException("draw failed");
+        }
+
+        @Override
+        public void setAlpha(int alpha) {
+        }
+
+        @Override
+        public void setColorFilter(ColorFilter cf) {
+        }
+
+        @Override
+        public int getOpacity() {
+            return PixelFormat.TRANSLUCENT;
+        }
+    }
+}
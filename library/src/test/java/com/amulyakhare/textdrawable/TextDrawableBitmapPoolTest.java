@@ -0,0 +1,130 @@
+package com.amulyakhare.textdrawable;
+
+import android.graphics.Bitmap;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author alvinhkh
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class TextDrawableBitmapPoolTest {
+
+    // one 10x10 ARGB_8888 bitmap
+    private static final int BITMAP_SIZE = 10 * 10 * 4;
+
+    @Test
+    public void returnsWhatWasPut() {
+        TextDrawableBitmapPool pool = new TextDrawableBitmapPool(10 * BITMAP_SIZE);
+        assertNull(pool.get(10, 10, Bitmap.Config.ARGB_8888));
+        Bitmap bitmap = argb(10, 10);
+        assertTrue(pool.put(bitmap));
+        assertEquals(BITMAP_SIZE, pool.size());
+
+        assertSame(bitmap, pool.get(10, 10, Bitmap.Config.ARGB_8888));
+        assertEquals(0, pool.size());
+        assertNull(pool.get(10, 10, Bitmap.Config.ARGB_8888));
+        assertEquals(1, pool.getHitCount());
+        assertEquals(2, pool.getMissCount());
+    }
+
+    @Test
+    public void groupsBySizeAndConfig() {
+        TextDrawableBitmapPool pool = new TextDrawableBitmapPool(10 * BITMAP_SIZE);
+        Bitmap argb = argb(10, 10);
+        Bitmap rgb565 = Bitmap.createBitmap(10, 10, Bitmap.Config.RGB_565);
+        pool.put(argb);
+        pool.put(rgb565);
+
+        assertNull(pool.get(10, 20, Bitmap.Config.ARGB_8888));
+        assertNull(pool.get(10, 10, Bitmap.Config.ALPHA_8));
+        assertSame(rgb565, pool.get(10, 10, Bitmap.Config.RGB_565));
+        assertSame(argb, pool.get(10, 10, Bitmap.Config.ARGB_8888));
+    }
+
+    @Test
+    public void trimsOldestFirstAndRecyclesThem() {
+        TextDrawableBitmapPool pool = new TextDrawableBitmapPool(2 * BITMAP_SIZE);
+        Bitmap first = argb(10, 10);
+        Bitmap second = argb(10, 10);
+        Bitmap third = argb(10, 10);
+        pool.put(first);
+        pool.put(second);
+        pool.put(third);
+
+        assertEquals(2 * BITMAP_SIZE, pool.size());
+        assertEquals(1, pool.getEvictionCount());
+        assertTrue(first.isRecycled());
+        assertFalse(second.isRecycled());
+        assertFalse(third.isRecycled());
+
+        pool.evictAll();
+        assertEquals(0, pool.size());
+        assertTrue(second.isRecycled());
+        assertTrue(third.isRecycled());
+    }
+
+    @Test
+    public void bitmapPutTwiceIsPooledOnce() {
+        TextDrawableBitmapPool pool = new TextDrawableBitmapPool(10 * BITMAP_SIZE);
+        Bitmap bitmap = argb(10, 10);
+        pool.put(bitmap);
+        assertTrue(pool.put(bitmap));
+        assertEquals(BITMAP_SIZE, pool.size());
+        assertSame(bitmap, pool.get(10, 10, Bitmap.Config.ARGB_8888));
+        assertNull(pool.get(10, 10, Bitmap.Config.ARGB_8888));
+
+        // once taken out it may be put again
+        assertTrue(pool.put(bitmap));
+        assertEquals(BITMAP_SIZE, pool.size());
+    }
+
+    @Test
+    public void unusableBitmapsAreLeftAlone() {
+        TextDrawableBitmapPool pool = new TextDrawableBitmapPool(BITMAP_SIZE);
+        Bitmap immutable = argb(10, 10).copy(Bitmap.Config.ARGB_8888, false);
+        Bitmap oversized = argb(20, 20);
+        assertFalse(pool.put(immutable));
+        assertFalse(pool.put(oversized));
+        assertFalse(immutable.isRecycled());
+        assertFalse(oversized.isRecycled());
+        assertEquals(0, pool.size());
+    }
+
+    @Test
+    public void unusableReuseBitmapIsLeftAlone() {
+        TextDrawable drawable = new TextDrawable.Builder()
+                .setText("AK")
+                .setWidth(10)
+                .setHeight(10)
+                .build();
+        // still on screen, say, so it must be neither pooled nor recycled
+        Bitmap wrongSize = argb(20, 20);
+        Bitmap immutable = argb(10, 10).copy(Bitmap.Config.ARGB_8888, false);
+        TextDrawableBitmapPool.getInstance().evictAll();
+
+        assertNotSame(wrongSize, drawable.getBitmap(wrongSize, Bitmap.Config.ARGB_8888));
+        assertNotSame(immutable, drawable.getBitmap(immutable, Bitmap.Config.ARGB_8888));
+        assertFalse(wrongSize.isRecycled());
+        assertFalse(immutable.isRecycled());
+        assertEquals(0, TextDrawableBitmapPool.getInstance().size());
+
+        Bitmap reuse = argb(10, 10);
+        assertSame(reuse, drawable.getBitmap(reuse, Bitmap.Config.ARGB_8888));
+    }
+
+    private static Bitmap argb(int width, int height) {
+        return Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+    }
+}
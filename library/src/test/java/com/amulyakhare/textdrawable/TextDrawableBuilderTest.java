@@ -0,0 +1,48 @@
+package com.amulyakhare.textdrawable;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.graphics.drawable.BitmapDrawable;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author alvinhkh
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class TextDrawableBuilderTest {
+
+    @Test
+    public void publicFieldsAreReadWhenBuilding() {
+        TextDrawable.Builder builder = new TextDrawable.Builder().setText("AK");
+        BitmapDrawable centre = new BitmapDrawable(RuntimeEnvironment.application.getResources(),
+                Bitmap.createBitmap(8, 8, Bitmap.Config.ARGB_8888));
+        builder.drawable = centre;
+        builder.radius = 12f;
+        builder.textColor = Color.RED;
+        TextDrawableSpec spec = builder.buildSpec();
+        assertSame(centre, spec.drawable);
+        assertEquals(12f, spec.radius, 0f);
+        assertEquals(Color.RED, spec.textColor);
+    }
+
+    @Test
+    public void equalValuesBuildEqualSpecs() {
+        TextDrawableSpec a = new TextDrawable.Builder().setText("AK").setColor(Color.BLUE).buildSpec();
+        TextDrawableSpec b = new TextDrawable.Builder().setText("AK").setColor(Color.BLUE).buildSpec();
+        TextDrawableSpec c = new TextDrawable.Builder().setText("AK").setColor(Color.RED).buildSpec();
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertSame(a.intern(), b.intern());
+        assertNotEquals(a, c);
+    }
+}
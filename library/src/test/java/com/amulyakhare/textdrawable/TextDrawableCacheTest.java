@@ -0,0 +1,152 @@
+package com.amulyakhare.textdrawable;
+
+import android.graphics.Bitmap;
+import android.support.annotation.NonNull;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author alvinhkh
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class TextDrawableCacheTest {
+
+    private static final int SIZE = 16;
+
+    // one SIZE x SIZE ARGB_8888 avatar
+    private static final int BITMAP_SIZE = SIZE * SIZE * 4;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void secondLookupIsAHit() {
+        TextDrawableCache cache = new TextDrawableCache(10 * BITMAP_SIZE);
+        assertNull(cache.peek(spec("AK")));
+        Bitmap bitmap = cache.get(spec("AK"));
+        assertSame(bitmap, cache.get(spec("AK")));
+        assertSame(bitmap, cache.peek(spec("AK")));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(BITMAP_SIZE, cache.size());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedBySize() {
+        TextDrawableCache cache = new TextDrawableCache(2 * BITMAP_SIZE);
+        Bitmap a = cache.get(spec("A"));
+        cache.get(spec("B"));
+        // touch A, so B is the eldest
+        assertSame(a, cache.get(spec("A")));
+        Bitmap c = cache.get(spec("C"));
+
+        assertNull(cache.peek(spec("B")));
+        assertSame(a, cache.peek(spec("A")));
+        assertSame(c, cache.peek(spec("C")));
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(2 * BITMAP_SIZE, cache.size());
+
+        cache.evictAll();
+        assertEquals(0, cache.size());
+        assertNull(cache.peek(spec("A")));
+    }
+
+    @Test
+    public void removedSpecIsRenderedAgain() {
+        TextDrawableCache cache = new TextDrawableCache(10 * BITMAP_SIZE);
+        Bitmap bitmap = cache.get(spec("AK"));
+        assertSame(bitmap, cache.remove(spec("AK")));
+        assertNull(cache.remove(spec("AK")));
+        assertEquals(0, cache.size());
+        assertNotSame(bitmap, cache.get(spec("AK")));
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void concurrentMissesReturnTheFirstBitmap() throws Exception {
+        final CountDownLatch bothMissed = new CountDownLatch(2);
+        TextDrawableDiskCache disk = new TextDrawableDiskCache(folder.getRoot(), 1 << 20) {
+            @Override
+            public Bitmap get(@NonNull TextDrawableSpec spec) {
+                // hold both callers between the memory miss and rendering
+                bothMissed.countDown();
+                try {
+                    bothMissed.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            }
+        };
+        final TextDrawableCache cache = new TextDrawableCache(10 * BITMAP_SIZE, disk);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Callable<Bitmap> get = new Callable<Bitmap>() {
+                @Override
+                public Bitmap call() {
+                    return cache.get(spec("AK"));
+                }
+            };
+            Future<Bitmap> first = executor.submit(get);
+            Future<Bitmap> second = executor.submit(get);
+            Bitmap bitmap = first.get(10, TimeUnit.SECONDS);
+            assertSame(bitmap, second.get(10, TimeUnit.SECONDS));
+            assertSame(bitmap, cache.peek(spec("AK")));
+            assertEquals(2, cache.getMissCount());
+            assertEquals(BITMAP_SIZE, cache.size());
+        } finally {
+            executor.shutdown();
+            disk.close();
+        }
+    }
+
+    @Test
+    public void missIsLoadedFromTheDiskCache() throws IOException {
+        File directory = folder.getRoot();
+        TextDrawableDiskCache disk = new TextDrawableDiskCache(directory, 1 << 20);
+        try {
+            new TextDrawableCache(10 * BITMAP_SIZE, disk).get(spec("AK"));
+            assertEquals(1, disk.getMissCount());
+
+            // a new memory cache, e.g. after a restart, finds it on disk
+            TextDrawableCache cache = new TextDrawableCache(10 * BITMAP_SIZE, disk);
+            assertNotNull(cache.get(spec("AK")));
+            assertEquals(1, cache.getMissCount());
+            assertEquals(1, disk.getHitCount());
+        } finally {
+            disk.close();
+        }
+        assertTrue(new File(directory, "avatars.data").length() > 0);
+    }
+
+    private static TextDrawableSpec spec(String text) {
+        return new TextDrawable.Builder()
+                .setText(text)
+                .setShape(TextDrawable.SHAPE_ROUND)
+                .setWidth(SIZE)
+                .setHeight(SIZE)
+                .buildSpec();
+    }
+}
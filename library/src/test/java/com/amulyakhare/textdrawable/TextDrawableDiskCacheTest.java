@@ -0,0 +1,232 @@
+package com.amulyakhare.textdrawable;
+
+import android.graphics.Bitmap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Journal replay, index growth and compaction of {@link TextDrawableDiskCache}.
+ *
+ * @author alvinhkh
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class TextDrawableDiskCacheTest {
+
+    private static final long MAX_SIZE = 1 << 20;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private File directory;
+
+    private TextDrawableDiskCache cache;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = folder.getRoot();
+        cache = new TextDrawableDiskCache(directory, MAX_SIZE);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        cache.close();
+    }
+
+    @Test
+    public void storedBitmapsSurviveReopening() throws IOException {
+        putAll(0, 10);
+        reopen();
+        assertStored(0, 10);
+        assertEquals(10, cache.getHitCount());
+    }
+
+    @Test
+    public void journalIsReplayedWithoutTheIndex() throws IOException {
+        putAll(0, 10);
+        assertTrue(cache.remove(spec(3)));
+        cache.close();
+        assertTrue(new File(directory, "avatars.index").delete());
+        cache = new TextDrawableDiskCache(directory, MAX_SIZE);
+        assertNull(cache.get(spec(3)));
+        assertStored(0, 3);
+        assertStored(4, 10);
+    }
+
+    @Test
+    public void tornTailIsCutOff() throws IOException {
+        putAll(0, 10);
+        cache.close();
+        File data = new File(directory, "avatars.data");
+        long length = data.length();
+        FileOutputStream out = new FileOutputStream(data, true);
+        try {
+            // a record header that was only partly written
+            out.write(new byte[]{0x54, 0x44, 0x44, 0x31, 0, 0, 0});
+        } finally {
+            out.close();
+        }
+        cache = new TextDrawableDiskCache(directory, MAX_SIZE);
+        assertEquals(length, data.length());
+        assertStored(0, 10);
+        putAll(10, 11);
+        reopen();
+        assertStored(0, 11);
+    }
+
+    @Test
+    public void indexWithAWrongCountIsRebuilt() throws IOException {
+        putAll(0, 10);
+        for (int count : new int[]{3, 20, -1}) {
+            cache.close();
+            RandomAccessFile index = new RandomAccessFile(new File(directory, "avatars.index"), "rw");
+            try {
+                // the entry count in the header
+                index.seek(12);
+                index.writeInt(count);
+            } finally {
+                index.close();
+            }
+            // small enough to trim on opening, which walks the entries
+            cache = new TextDrawableDiskCache(directory, cache.size() / 2);
+            assertTrue(cache.size() <= cache.maxSize());
+            assertStored(9, 10);
+        }
+    }
+
+    @Test
+    public void indexGrowsPastItsInitialCapacity() throws IOException {
+        File index = new File(directory, "avatars.index");
+        long initialLength = index.length();
+        putAll(0, 1000);
+        assertTrue(index.length() > initialLength);
+        assertStored(0, 1000);
+        reopen();
+        assertStored(0, 1000);
+        // no temporary index is left behind
+        assertFalse(new File(directory, "avatars.index.tmp").exists());
+    }
+
+    @Test
+    public void compactionKeepsTheRecentEntries() throws IOException {
+        cache.close();
+        long maxSize = 32 * 1024;
+        cache = new TextDrawableDiskCache(directory, maxSize);
+        File data = new File(directory, "avatars.data");
+        int compactions = 0;
+        long length = 0;
+        for (int i = 0; i < 12000; i++) {
+            assertTrue(cache.put(spec(i), bitmap(i)));
+            if (data.length() < length) {
+                compactions++;
+            }
+            length = data.length();
+        }
+        assertTrue(cache.size() <= maxSize);
+        assertTrue(compactions > 0);
+        assertTrue(cache.getEvictionCount() > 0);
+        assertStored(11990, 12000);
+        reopen();
+        assertStored(11990, 12000);
+    }
+
+    @Test
+    public void evictAllEmptiesTheDataFile() throws IOException {
+        putAll(0, 10);
+        cache.evictAll();
+        assertEquals(0, cache.size());
+        assertEquals(0, new File(directory, "avatars.data").length());
+        assertNull(cache.get(spec(0)));
+        putAll(0, 1);
+        assertStored(0, 1);
+    }
+
+    @Test
+    public void closedCacheIsEmpty() throws IOException {
+        putAll(0, 1);
+        cache.close();
+        assertNull(cache.get(spec(0)));
+        assertFalse(cache.put(spec(1), bitmap(1)));
+        assertFalse(cache.remove(spec(0)));
+        cache.evictAll();
+        cache.close();
+    }
+
+    @Test
+    public void directoryIsOpenInOneCacheAtATime() throws IOException {
+        try {
+            new TextDrawableDiskCache(directory, MAX_SIZE);
+            fail();
+        } catch (IOException expected) {
+        }
+        putAll(0, 1);
+        reopen();
+        assertStored(0, 1);
+    }
+
+    @Test
+    public void decodesOpaqueAvatarsAsRgb565() {
+        TextDrawableSpec opaque = spec(0);
+        TextDrawableSpec round = builder(1).setShape(TextDrawable.SHAPE_ROUND).buildSpec();
+        TextDrawableSpec translucent = builder(2).setColor(0x80ff0000).buildSpec();
+        for (TextDrawableSpec spec : new TextDrawableSpec[]{opaque, round, translucent}) {
+            assertTrue(cache.put(spec, TextDrawable.fromSpec(spec).getBitmap()));
+        }
+        // the configs getBitmap() renders them in on a device
+        assertEquals(Bitmap.Config.RGB_565, cache.get(opaque).getConfig());
+        assertEquals(Bitmap.Config.ARGB_8888, cache.get(round).getConfig());
+        assertEquals(Bitmap.Config.ARGB_8888, cache.get(translucent).getConfig());
+    }
+
+    private void reopen() throws IOException {
+        cache.close();
+        cache = new TextDrawableDiskCache(directory, MAX_SIZE);
+    }
+
+    private void putAll(int from, int to) {
+        for (int i = from; i < to; i++) {
+            assertTrue(cache.put(spec(i), bitmap(i)));
+        }
+    }
+
+    private void assertStored(int from, int to) {
+        for (int i = from; i < to; i++) {
+            assertNotNull("entry " + i, cache.get(spec(i)));
+        }
+    }
+
+    private static TextDrawableSpec spec(int i) {
+        return builder(i).buildSpec();
+    }
+
+    private static Bitmap bitmap(int i) {
+        return builder(i).build().getBitmap();
+    }
+
+    private static TextDrawable.Builder builder(int i) {
+        return new TextDrawable.Builder()
+                .setWidth(16)
+                .setHeight(16)
+                .setColor(0xff000000 | i)
+                .setText(Integer.toString(i));
+    }
+}
@@ -0,0 +1,84 @@
+package com.amulyakhare.textdrawable;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.drawable.BitmapDrawable;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Every {@link TextDrawable#draw(Canvas)} issues exactly one text or centre bitmap call.
+ *
+ * @author alvinhkh
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class TextDrawableDrawTest {
+
+    @Test
+    public void drawsTextOnce() {
+        TextDrawable drawable = new TextDrawable.Builder().setText("AK").build();
+        RecordingCanvas canvas = draw(drawable);
+        assertEquals(1, canvas.textCalls);
+        assertEquals(0, canvas.bitmapCalls);
+    }
+
+    @Test
+    public void drawsTextOnceWhenCentredOnGlyphs() {
+        TextDrawable drawable = new TextDrawable.Builder()
+                .setText("Ag")
+                .setVerticalAlign(TextDrawable.ALIGN_GLYPH_BOUNDS)
+                .build();
+        RecordingCanvas canvas = draw(drawable);
+        assertEquals(1, canvas.textCalls);
+        assertEquals(0, canvas.bitmapCalls);
+    }
+
+    @Test
+    public void drawsTextOnceWithBorderAndShape() {
+        TextDrawable drawable = new TextDrawable.Builder()
+                .setShape(TextDrawable.SHAPE_ROUND)
+                .setBorder(4)
+                .setText("AK")
+                .build();
+        RecordingCanvas canvas = draw(drawable);
+        assertEquals(1, canvas.textCalls);
+        assertEquals(0, canvas.bitmapCalls);
+    }
+
+    @Test
+    public void drawsBitmapCentreOnceAndNoText() {
+        Bitmap centre = Bitmap.createBitmap(16, 16, Bitmap.Config.ARGB_8888);
+        TextDrawable drawable = new TextDrawable.Builder()
+                .setDrawable(new BitmapDrawable(RuntimeEnvironment.application.getResources(), centre))
+                .setText("AK")
+                .build();
+        RecordingCanvas canvas = draw(drawable);
+        assertEquals(0, canvas.textCalls);
+        assertEquals(1, canvas.bitmapCalls);
+    }
+
+    @Test
+    public void drawsOncePerFrame() {
+        TextDrawable drawable = new TextDrawable.Builder().setText("AK").build();
+        drawable.setBounds(0, 0, 96, 96);
+        RecordingCanvas canvas = new RecordingCanvas();
+        drawable.draw(canvas);
+        drawable.draw(canvas);
+        drawable.draw(canvas);
+        assertEquals(3, canvas.textCalls);
+    }
+
+    private static RecordingCanvas draw(TextDrawable drawable) {
+        drawable.setBounds(0, 0, 96, 96);
+        RecordingCanvas canvas = new RecordingCanvas();
+        drawable.draw(canvas);
+        return canvas;
+    }
+}
@@ -0,0 +1,115 @@
+package com.amulyakhare.textdrawable;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author alvinhkh
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class TextDrawableExporterTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private File directory;
+
+    private TextDrawableExporter exporter;
+
+    @Before
+    public void setUp() {
+        directory = folder.getRoot();
+        exporter = new TextDrawableExporter(directory, Bitmap.CompressFormat.PNG, 100, 4, 8);
+    }
+
+    @After
+    public void tearDown() {
+        exporter.shutdown();
+    }
+
+    @Test
+    public void equalSpecsAreRenderedOnce() throws InterruptedException {
+        List<Map.Entry<String, TextDrawable.Builder>> entries = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            entries.add(entry("key" + i, i % 2 == 0 ? Color.RED : Color.BLUE));
+        }
+        TextDrawableExporter.Result result = exporter.export(entries, null);
+        assertEquals(20, result.getExportedCount());
+        assertEquals(2, result.getRenderedCount());
+        assertTrue(result.getFailedKeys().isEmpty());
+        assertEquals(20, directory.list().length);
+    }
+
+    @Test
+    public void repeatedKeyWithDifferentSpecsWritesOneFile() throws InterruptedException {
+        List<Map.Entry<String, TextDrawable.Builder>> entries = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            entries.add(entry("same", Color.rgb(i, 0, 0)));
+        }
+        TextDrawableExporter.Result result = exporter.export(entries, null);
+        assertEquals(40, result.getExportedCount());
+        assertTrue(result.getFailedKeys().isEmpty());
+        // no temporary file is left behind
+        String[] names = directory.list();
+        assertEquals(1, names.length);
+        assertEquals("same.png", names[0]);
+    }
+
+    @Test
+    public void failedExportWaitsForRunningKeysAndSkipsTheRest() throws InterruptedException {
+        final List<Map.Entry<String, TextDrawable.Builder>> valid = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            valid.add(entry("key" + i, Color.rgb(0, i, 0)));
+        }
+        Iterable<Map.Entry<String, TextDrawable.Builder>> entries =
+                new Iterable<Map.Entry<String, TextDrawable.Builder>>() {
+                    @Override
+                    public Iterator<Map.Entry<String, TextDrawable.Builder>> iterator() {
+                        List<Map.Entry<String, TextDrawable.Builder>> list = new ArrayList<>(valid);
+                        list.add(30, entry("../escape", Color.BLACK));
+                        return list.iterator();
+                    }
+                };
+        try {
+            exporter.export(entries, null);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        String[] names = directory.list();
+        assertTrue(names.length <= 30);
+        Thread.sleep(200);
+        assertEquals(names.length, directory.list().length);
+        for (String name : directory.list()) {
+            assertTrue(name, name.endsWith(".png"));
+        }
+    }
+
+    private static Map.Entry<String, TextDrawable.Builder> entry(String key, int color) {
+        return new AbstractMap.SimpleEntry<>(key, new TextDrawable.Builder()
+                .setWidth(16)
+                .setHeight(16)
+                .setColor(color)
+                .setText(key.substring(0, 1)));
+    }
+}
@@ -0,0 +1,52 @@
+package com.amulyakhare.textdrawable;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Each draw and each bitmap render is reported once, under its own kind.
+ *
+ * @author alvinhkh
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class TextDrawableMetricsTest {
+
+    private final TextDrawableMetrics.Recorder recorder = new TextDrawableMetrics.Recorder();
+
+    private TextDrawable drawable;
+
+    @Before
+    public void setUp() {
+        drawable = new TextDrawable.Builder().setWidth(48).setHeight(48).setText("AK").build();
+        drawable.setBounds(0, 0, 48, 48);
+        TextDrawableMetrics.setListener(recorder);
+    }
+
+    @After
+    public void tearDown() {
+        TextDrawableMetrics.setListener(null);
+    }
+
+    @Test
+    public void drawIsReportedAsDraw() {
+        drawable.draw(new RecordingCanvas());
+        TextDrawableMetrics.Snapshot snapshot = recorder.snapshot();
+        assertEquals(1, snapshot.getDrawCount());
+        assertEquals(0, snapshot.getRenderCount());
+    }
+
+    @Test
+    public void getBitmapIsReportedAsRenderOnly() {
+        drawable.getBitmap();
+        TextDrawableMetrics.Snapshot snapshot = recorder.snapshot();
+        assertEquals(0, snapshot.getDrawCount());
+        assertEquals(1, snapshot.getRenderCount());
+    }
+}
@@ -0,0 +1,83 @@
+package com.amulyakhare.textdrawable;
+
+import android.graphics.Bitmap;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author alvinhkh
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class TextDrawablePrefetcherTest {
+
+    private static final long TIMEOUT_MILLIS = 10000;
+
+    private static TextDrawable.Builder avatar(String text) {
+        return new TextDrawable.Builder().setWidth(16).setHeight(16).setText(text);
+    }
+
+    @Test
+    public void failedRenderIsSkipped() throws InterruptedException {
+        TextDrawableCache cache = new TextDrawableCache(1 << 20) {
+            @Override
+            public Bitmap get(TextDrawableSpec spec) {
+                if (spec.getText().equals("X")) {
+                    throw new IllegalStateException("render failed");
+                }
+                return super.get(spec);
+            }
+        };
+        TextDrawablePrefetcher prefetcher = new TextDrawablePrefetcher(cache, 1, 8);
+        prefetcher.prefetchVisible(Arrays.asList(avatar("X"), avatar("A"), avatar("B")));
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while ((cache.peek(avatar("A")) == null || cache.peek(avatar("B")) == null)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertNotNull(cache.peek(avatar("A")));
+        assertNotNull(cache.peek(avatar("B")));
+        prefetcher.shutdown();
+    }
+
+    @Test
+    public void visibleRequestsAreBounded() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        TextDrawableCache cache = new TextDrawableCache(1 << 20) {
+            @Override
+            public Bitmap get(TextDrawableSpec spec) {
+                started.countDown();
+                try {
+                    release.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.get(spec);
+            }
+        };
+        TextDrawablePrefetcher prefetcher = new TextDrawablePrefetcher(cache, 1, 4);
+        List<TextDrawable.Builder> builders = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            builders.add(avatar("V" + i));
+        }
+        prefetcher.prefetchVisible(builders);
+        assertTrue(started.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        prefetcher.prefetchVisible(builders);
+        assertTrue(prefetcher.getPendingCount() <= 4);
+        release.countDown();
+        prefetcher.shutdown();
+    }
+}
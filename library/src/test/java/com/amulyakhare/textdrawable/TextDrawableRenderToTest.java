@@ -0,0 +1,236 @@
+package com.amulyakhare.textdrawable;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.drawable.Drawable;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * {@link TextDrawable#renderTo} draws the same from several threads at once, and when called
+ * from inside another render, as it does alone on one thread.
+ *
+ * @author alvinhkh
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class TextDrawableRenderToTest {
+
+    private static final int THREADS = 4;
+
+    private static final int ROUNDS = 200;
+
+    // a different size per render, so a layout shared between renders would show
+    private static final int[] SIZES = {24, 48, 96, 37};
+
+    @Test
+    public void concurrentRendersMatchASingleThreadedRender() throws Exception {
+        final TextDrawable[] drawables = {
+                new TextDrawable.Builder().setText("AK").build(),
+                new TextDrawable.Builder()
+                        .setText("Ag")
+                        .setShape(TextDrawable.SHAPE_ROUND)
+                        .setBorder(3)
+                        .setVerticalAlign(TextDrawable.ALIGN_GLYPH_BOUNDS)
+                        .build(),
+                new TextDrawable.Builder()
+                        .setText("WWW")
+                        .setShape(TextDrawable.SHAPE_ROUND_RECT)
+                        .setRadius(6)
+                        .setFontSize(14)
+                        .build(),
+                nested(new TextDrawable.Builder().setText("IN").setBorder(2).build())
+        };
+        final String[][] expected = new String[drawables.length][SIZES.length];
+        for (int d = 0; d < drawables.length; d++) {
+            for (int s = 0; s < SIZES.length; s++) {
+                expected[d][s] = render(drawables[d], SIZES[s]);
+            }
+        }
+
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final int offset = t;
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        start.await(10, TimeUnit.SECONDS);
+                        for (int i = 0; i < ROUNDS; i++) {
+                            int d = (i + offset) % drawables.length;
+                            int s = (i / drawables.length + offset) % SIZES.length;
+                            assertEquals(expected[d][s], render(drawables[d], SIZES[s]));
+                        }
+                        return null;
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void nestedRenderMatchesRendersOneAfterTheOther() {
+        TextDrawable inner = new TextDrawable.Builder()
+                .setText("IN")
+                .setShape(TextDrawable.SHAPE_ROUND)
+                .setBorder(2)
+                .build();
+        NestingDrawable centre = new NestingDrawable(inner);
+        TextDrawable outer = new TextDrawable.Builder()
+                .setDrawable(centre)
+                .setBorder(4)
+                .build();
+
+        String nested = render(outer, 96);
+
+        // the same calls, with the inner avatar rendered on its own after the outer one
+        centre.enabled = false;
+        String outerAlone = render(outer, 96);
+        Rect bounds = centre.getBounds();
+        LoggingCanvas canvas = new LoggingCanvas();
+        canvas.translate(bounds.left, bounds.top);
+        inner.renderTo(canvas, bounds.width(), bounds.height());
+        assertEquals(outerAlone + canvas.log, nested);
+
+        // and rendering it did not leave anything behind for the next render
+        centre.enabled = true;
+        assertEquals(nested, render(outer, 96));
+    }
+
+    private static TextDrawable nested(TextDrawable inner) {
+        return new TextDrawable.Builder()
+                .setDrawable(new NestingDrawable(inner))
+                .setShape(TextDrawable.SHAPE_ROUND)
+                .setBorder(4)
+                .build();
+    }
+
+    private static String render(TextDrawable drawable, int size) {
+        LoggingCanvas canvas = new LoggingCanvas();
+        drawable.renderTo(canvas, size, size);
+        return canvas.log.toString();
+    }
+
+    /**
+     * Renders a {@link TextDrawable} into its bounds from inside the outer render.
+     */
+    private static final class NestingDrawable extends Drawable {
+
+        private final TextDrawable inner;
+
+        boolean enabled = true;
+
+        NestingDrawable(TextDrawable inner) {
+            this.inner = inner;
+        }
+
+        @Override
+        public void draw(Canvas canvas) {
+            if (!enabled) {
+                return;
+            }
+            Rect bounds = getBounds();
+            canvas.save();
+            canvas.translate(bounds.left, bounds.top);
+            inner.renderTo(canvas, bounds.width(), bounds.height());
+            canvas.restore();
+        }
+
+        @Override
+        public void setAlpha(int alpha) {
+        }
+
+        @Override
+        public void setColorFilter(ColorFilter colorFilter) {
+        }
+
+        @Override
+        public int getOpacity() {
+            return PixelFormat.TRANSLUCENT;
+        }
+    }
+
+    /**
+     * Logs the geometry and paint of every shape, text and bitmap call. The test canvas does
+     * not rasterize, so this stands in for comparing pixels.
+     */
+    private static final class LoggingCanvas extends Canvas {
+
+        final StringBuilder log = new StringBuilder();
+
+        LoggingCanvas() {
+            super(Bitmap.createBitmap(96, 96, Bitmap.Config.ARGB_8888));
+        }
+
+        @Override
+        public void translate(float dx, float dy) {
+            log.append("translate ").append(dx).append(',').append(dy).append('\n');
+            super.translate(dx, dy);
+        }
+
+        @Override
+        public void drawRect(RectF rect, Paint paint) {
+            shape("rect", rect, 0, paint);
+        }
+
+        @Override
+        public void drawOval(RectF oval, Paint paint) {
+            shape("oval", oval, 0, paint);
+        }
+
+        @Override
+        public void drawRoundRect(RectF rect, float rx, float ry, Paint paint) {
+            shape("roundRect", rect, rx, paint);
+        }
+
+        @Override
+        public void drawText(String text, float x, float y, Paint paint) {
+            log.append("text ").append(text).append(' ').append(x).append(',').append(y)
+                    .append(" size=").append(paint.getTextSize())
+                    .append(" color=").append(Integer.toHexString(paint.getColor()))
+                    .append(" typeface=").append(paint.getTypeface())
+                    .append('\n');
+        }
+
+        @Override
+        public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+            log.append("bitmap ").append(bitmap.getWidth()).append('x').append(bitmap.getHeight())
+                    .append(" at ").append(left).append(',').append(top).append('\n');
+        }
+
+        private void shape(String name, RectF rect, float radius, Paint paint) {
+            log.append(name).append(' ').append(rect.toShortString()).append(" r=").append(radius)
+                    .append(" color=").append(Integer.toHexString(paint.getColor()))
+                    .append(" style=").append(paint.getStyle())
+                    .append(" stroke=").append(paint.getStrokeWidth())
+                    .append('\n');
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.amulyakhare.textdrawable;
+
+import android.graphics.Color;
+import android.graphics.Typeface;
+import android.graphics.drawable.ColorDrawable;
+import android.os.BadParcelableException;
+import android.os.Parcel;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * @author alvinhkh
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class TextDrawableSpecTest {
+
+    @Test
+    public void portableSpecSurvivesAParcel() {
+        TextDrawableSpec spec = new TextDrawable.Builder()
+                .setText("AK")
+                .setColor(Color.RED)
+                .setShape(TextDrawable.SHAPE_ROUND)
+                .buildSpec();
+        TextDrawableSpec read = writeAndRead(spec);
+        assertEquals(spec, read);
+        assertSame(read, read.intern());
+        assertEquals(spec.getFingerprint(), read.getFingerprint());
+    }
+
+    @Test
+    public void specWithDrawableCanBeWrittenButNotRead() {
+        assertNotReadable(new TextDrawable.Builder()
+                .setDrawable(new ColorDrawable(Color.BLUE))
+                .buildSpec());
+    }
+
+    @Test
+    public void specWithTypefaceCanBeWrittenButNotRead() {
+        assertNotReadable(new TextDrawable.Builder()
+                .setText("AK")
+                .setFont(Typeface.DEFAULT)
+                .buildSpec());
+    }
+
+    @Test
+    public void avatarSpecKeepsAFractionalRadius() {
+        TextDrawable.Builder builder = new TextDrawable.Builder()
+                .setText("AK")
+                .setShape(TextDrawable.SHAPE_ROUND_RECT);
+        builder.radius = 7.5f;
+        assertEquals(7.5f, builder.buildSpec().toAvatarSpec().getRadius(), 0f);
+    }
+
+    private static void assertNotReadable(TextDrawableSpec spec) {
+        Parcel parcel = Parcel.obtain();
+        try {
+            // writing, e.g. while saving instance state, does not throw
+            parcel.writeParcelable(spec, 0);
+            parcel.setDataPosition(0);
+            parcel.readParcelable(TextDrawableSpec.class.getClassLoader());
+            fail();
+        } catch (BadParcelableException expected) {
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    private static TextDrawableSpec writeAndRead(TextDrawableSpec spec) {
+        Parcel parcel = Parcel.obtain();
+        try {
+            parcel.writeParcelable(spec, 0);
+            parcel.setDataPosition(0);
+            return parcel.readParcelable(TextDrawableSpec.class.getClassLoader());
+        } finally {
+            parcel.recycle();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.amulyakhare.textdrawable;
+
+import android.graphics.Color;
+import android.graphics.ColorFilter;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffColorFilter;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Alpha and colour filter are per built drawable, and shared through the constant state.
+ *
+ * @author alvinhkh
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class TextDrawableStateTest {
+
+    private static TextDrawable build() {
+        return new TextDrawable.Builder().setText("AK").setColor(Color.BLUE).build();
+    }
+
+    private static RecordingCanvas draw(android.graphics.drawable.Drawable drawable) {
+        drawable.setBounds(0, 0, 96, 96);
+        RecordingCanvas canvas = new RecordingCanvas();
+        drawable.draw(canvas);
+        return canvas;
+    }
+
+    @Test
+    public void builtDrawablesShareSpecResources() {
+        TextDrawable a = build();
+        TextDrawable b = build();
+        assertEquals(a.getSpec(), b.getSpec());
+        assertEquals(System.identityHashCode(a.getSpec()), System.identityHashCode(b.getSpec()));
+    }
+
+    @Test
+    public void shapeIsNotSharedBetweenBounds() {
+        TextDrawable a = build();
+        TextDrawable b = build();
+        a.setBounds(0, 0, 96, 96);
+        b.setBounds(0, 0, 24, 32);
+        assertNotSame(a.getShape(), b.getShape());
+        assertEquals(96, a.getShape().getWidth(), 0);
+        assertEquals(96, a.getShape().getHeight(), 0);
+        assertEquals(24, b.getShape().getWidth(), 0);
+        assertEquals(32, b.getShape().getHeight(), 0);
+    }
+
+    @Test
+    public void alphaDoesNotLeakToOtherBuiltDrawables() {
+        TextDrawable a = build();
+        TextDrawable b = build();
+        int alpha = draw(b).lastTextAlpha;
+        a.setAlpha(0x40);
+        assertEquals(0x40, draw(a).lastTextAlpha);
+        assertEquals(alpha, draw(b).lastTextAlpha);
+    }
+
+    @Test
+    public void colorFilterDoesNotLeakToOtherBuiltDrawables() {
+        TextDrawable a = build();
+        TextDrawable b = build();
+        ColorFilter filter = new PorterDuffColorFilter(Color.RED, PorterDuff.Mode.SRC_IN);
+        a.setColorFilter(filter);
+        assertNotNull(draw(a).lastTextColorFilter);
+        assertNull(draw(b).lastTextColorFilter);
+    }
+
+    @Test
+    public void alphaAppliesToAlreadyDrawnDrawable() {
+        TextDrawable a = build();
+        RecordingCanvas canvas = draw(a);
+        a.setAlpha(0x80);
+        a.draw(canvas);
+        assertEquals(0x80, canvas.lastTextAlpha);
+    }
+
+    @Test
+    public void newDrawableSharesAlphaUntilMutated() {
+        TextDrawable a = build();
+        TextDrawable copy = (TextDrawable) a.getConstantState().newDrawable();
+        draw(copy);
+        a.setAlpha(0x40);
+        assertEquals(0x40, draw(copy).lastTextAlpha);
+
+        copy.mutate();
+        copy.setAlpha(0x10);
+        assertEquals(0x10, draw(copy).lastTextAlpha);
+        assertEquals(0x40, draw(a).lastTextAlpha);
+    }
+}
@@ -0,0 +1,35 @@
+package com.amulyakhare.textdrawable.util;
+
+import android.graphics.Typeface;
+
+import com.amulyakhare.textdrawable.TextDrawable;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author alvinhkh
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class TypefaceHelperTest {
+
+    @Test
+    public void returnsTheSameInstanceForANameAndStyle() {
+        Typeface typeface = TypefaceHelper.get("serif", Typeface.BOLD);
+        assertNotNull(typeface);
+        assertSame(typeface, TypefaceHelper.get("serif", Typeface.BOLD));
+    }
+
+    @Test
+    public void nullNameIsTheDefaultFamily() {
+        assertSame(Typeface.defaultFromStyle(Typeface.BOLD), TypefaceHelper.get(null, Typeface.BOLD));
+        // as before the cache became a ConcurrentHashMap, a builder accepts a null name
+        assertNotNull(new TextDrawable.Builder().setFont(null, Typeface.NORMAL).build());
+    }
+}
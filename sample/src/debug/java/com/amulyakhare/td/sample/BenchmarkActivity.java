@@ -0,0 +1,128 @@
+package com.amulyakhare.td.sample;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Typeface;
+import android.os.Bundle;
+import android.support.v7.app.AppCompatActivity;
+import android.util.Log;
+import android.widget.ScrollView;
+import android.widget.TextView;
+
+import com.amulyakhare.textdrawable.TextDrawable;
+import com.amulyakhare.textdrawable.util.ColorGenerator;
+import com.amulyakhare.textdrawable.util.TypefaceHelper;
+
+/**
+ * On-device timing harness for the Canvas paths that cannot run in the JVM benchmark module.
+ * Start it with {@code adb shell am start -n com.amulyakhare.td/.sample.BenchmarkActivity} and
+ * read the results on screen or from logcat (tag "TextDrawableBenchmark").
+ */
+public class BenchmarkActivity extends AppCompatActivity {
+
+    private static final String TAG = "TextDrawableBenchmark";
+
+    private static final int WARMUP = 2000;
+
+    private static final int ITERATIONS = 20000;
+
+    private static final int SIZE = 120;
+
+    private TextView mOutput;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        mOutput = new TextView(this);
+        mOutput.setTypeface(Typeface.MONOSPACE);
+        ScrollView scrollView = new ScrollView(this);
+        scrollView.addView(mOutput);
+        setContentView(scrollView);
+
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                runAll();
+            }
+        }, TAG).start();
+    }
+
+    private void runAll() {
+        final TextDrawable.Builder builder = new TextDrawable.Builder()
+                .setShape(TextDrawable.SHAPE_ROUND)
+                .setWidth(SIZE)
+                .setHeight(SIZE);
+        final Bitmap target = Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ARGB_8888);
+        final Canvas canvas = new Canvas(target);
+        final TextDrawable drawable = builder.setText("AB").build();
+        drawable.setBounds(0, 0, SIZE, SIZE);
+
+        measure("Builder()", new Op() {
+            @Override
+            public Object run(int i) {
+                return new TextDrawable.Builder();
+            }
+        });
+        measure("Builder().setFont(..)", new Op() {
+            @Override
+            public Object run(int i) {
+                return new TextDrawable.Builder().setFont(Typeface.DEFAULT);
+            }
+        });
+        measure("Builder.build()", new Op() {
+            @Override
+            public Object run(int i) {
+                return builder.setColor(ColorGenerator.MATERIAL.getColor(i & 63)).build();
+            }
+        });
+        measure("TextDrawable.draw()", new Op() {
+            @Override
+            public Object run(int i) {
+                drawable.draw(canvas);
+                return null;
+            }
+        });
+        measure("TextDrawable.getBitmap()", new Op() {
+            @Override
+            public Object run(int i) {
+                return drawable.getBitmap();
+            }
+        });
+        final Bitmap[] reuse = new Bitmap[1];
+        measure("TextDrawable.getBitmap(reuse)", new Op() {
+            @Override
+            public Object run(int i) {
+                return reuse[0] = drawable.getBitmap(reuse[0]);
+            }
+        });
+        measure("TypefaceHelper.get()", new Op() {
+            @Override
+            public Object run(int i) {
+                return TypefaceHelper.get("sans-serif-light", Typeface.NORMAL);
+            }
+        });
+    }
+
+    private void measure(String name, Op op) {
+        for (int i = 0; i < WARMUP; i++) {
+            op.run(i);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            op.run(i);
+        }
+        long nanos = (System.nanoTime() - start) / ITERATIONS;
+        final String line = String.format("%-30s %8d ns/op%n", name, nanos);
+        Log.i(TAG, line.trim());
+        runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mOutput.append(line);
+            }
+        });
+    }
+
+    private interface Op {
+        Object run(int i);
+    }
+}